@@ -0,0 +1,210 @@
+package com.deveuge.kingsmarch.ai;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.Move;
+import com.deveuge.kingsmarch.engine.Player;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+import com.deveuge.kingsmarch.engine.pieces.Pawn;
+import com.deveuge.kingsmarch.engine.pieces.Piece;
+import com.deveuge.kingsmarch.engine.util.Position;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Computer player of a single-player game. Its moves are searched on the
+ * engine executor instead of the thread of the request asking for them, and
+ * played on the game by the engine thread once found. The game is only changed
+ * holding the lock of the player, which every other access to the game must
+ * hold too.
+ * <p>
+ * Every session has its own player, which keeps the search in progress so that
+ * it can be cancelled when the game is restarted or the session ends. A
+ * cancelled search is stopped and its move is not played. The player also keeps
+ * the {@link Difficulty} chosen for the session.
+ * <p>
+ * Once it has moved, the player ponders on the reply it expects, if the
+ * {@link Ponderer} allows it, and on a ponder hit its next move may be played
+ * without searching again. Neither is a position searched again when the
+ * {@link BestMoveCache} shared by all the players already has its move.
+ */
+public class AutoPlayer {
+
+	/** Prefix of the channels of the single-player sessions */
+	public static final String CHANNEL_PREFIX = "sp.";
+
+	private final TranspositionTable table;
+	private final ThreadPoolExecutor helpers;
+	private final Executor executor;
+	private final SearchMetrics metrics;
+	private final Ponderer ponderer;
+	private final BestMoveCache cache;
+
+	/** Channel of the session, where the moves of the computer are pushed */
+	@Getter
+	private final String channel = CHANNEL_PREFIX + UUID.randomUUID();
+
+	/** Level of play chosen for the session */
+	@Getter
+	@Setter
+	private volatile Difficulty difficulty = Difficulty.MEDIUM;
+
+	private CompletableFuture<Move> pending;
+	/** Search of the position after the expected reply of the player, while the player thinks */
+	private Ponderer.Ponder ponder;
+	/** Statistics of the last search whose move was played, null if the move was cached */
+	@Getter
+	private volatile SearchStatistics statistics;
+
+	/**
+	 * Creates a computer player.
+	 *
+	 * @param table    {@link TranspositionTable} Table shared with the searches of
+	 *                 other games
+	 * @param helpers  {@link ThreadPoolExecutor} Pool of the helper threads of the
+	 *                 parallel searches
+	 * @param executor {@link Executor} Engine executor, which runs the searches
+	 * @param metrics  {@link SearchMetrics} Metrics every search is recorded in
+	 * @param ponderer {@link Ponderer} Ponderer of all the games
+	 * @param cache    {@link BestMoveCache} Best moves found by all the games
+	 */
+	public AutoPlayer(TranspositionTable table, ThreadPoolExecutor helpers, Executor executor, SearchMetrics metrics,
+			Ponderer ponderer, BestMoveCache cache) {
+		this.table = table;
+		this.helpers = helpers;
+		this.executor = executor;
+		this.metrics = metrics;
+		this.ponderer = ponderer;
+		this.cache = cache;
+	}
+
+	/**
+	 * Starts searching the next move of the computer, unless a search is already
+	 * in progress, in which case its result is returned instead. On a ponder hit
+	 * or when the move is cached, the move is played at once.
+	 *
+	 * @param game   {@link Game} Current game, not a proxy bound to the request
+	 * @param limits {@link SearchLimits} Limits of the search
+	 * @return {@link CompletableFuture}<{@link Move}> Move once played, null if it
+	 *         is not the computer's turn or the game is over
+	 */
+	public synchronized CompletableFuture<Move> play(Game game, SearchLimits limits) {
+		if (pending != null && !pending.isDone()) {
+			return pending;
+		}
+		Player player = game.getPlayer(GameAI.AI_COLOUR);
+		if (game.getCurrentTurn() != player || game.getStatus().isEndOfGame()) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		CompletableFuture<Move> future = new CompletableFuture<>();
+		pending = future;
+		// Entries of the previous moves of every game may now be replaced
+		table.newSearch();
+		Ponderer.Ponder pondered = ponder;
+		ponder = null;
+		if (pondered != null) {
+			Move move = pondered.hit(game);
+			metrics.recordPonder(move != null);
+			if (move != null) {
+				SearchStatistics searchStatistics = pondered.getStatistics();
+				metrics.record(searchStatistics);
+				play(game, player, move, searchStatistics, limits, pondered.getPonderMove(), false, future);
+				return future;
+			}
+		}
+		ponderer.checkLoad();
+
+		int cached = cache.get(game.getBoard().getPosition(), limits);
+		if (cached != Moves.NONE) {
+			play(game, player, game.getBoard().toMove(cached), null, limits, Moves.NONE, false, future);
+			return future;
+		}
+
+		// The position is copied here, on the thread of the request
+		long key = game.getBoard().getPosition().getKey();
+		ParallelSearch search = new ParallelSearch(game, limits, table, helpers);
+		future.whenComplete((move, error) -> {
+			if (future.isCancelled()) {
+				search.stop();
+			}
+		});
+		executor.execute(() -> {
+			try {
+				if (future.isDone()) {
+					return;
+				}
+				Move move = search.run();
+				if (!future.isCancelled()) {
+					cache.put(key, limits, search.getBestMove(), search.getScore(), search.getCompletedDepth());
+				}
+				SearchStatistics searchStatistics = search.getStatistics();
+				metrics.record(searchStatistics);
+				play(game, player, move, searchStatistics, limits, search.getPonderMove(), true, future);
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Cancels the search in progress, if any, and stops pondering. Its move will
+	 * not be played.
+	 */
+	public synchronized void cancel() {
+		if (pending != null) {
+			pending.cancel(false);
+		}
+		if (ponder != null) {
+			ponder.stop();
+			ponder = null;
+		}
+	}
+
+	/**
+	 * Gets the reply the player is pondering on.
+	 *
+	 * @return {@link String} Reply in coordinate notation, e.g.
+	 *         <code>e2-e4</code>, null if the player is not pondering
+	 */
+	public synchronized String getExpectedReply() {
+		return ponder == null ? null : Moves.toNotation(ponder.getReply());
+	}
+
+	/**
+	 * Plays the move found on the game, unless the search has been cancelled, and
+	 * starts pondering on the expected reply. Holding the lock of the player, a
+	 * move cannot be played once {@link #cancel()} has returned. The move is
+	 * played on an engine thread when it has just been searched, and on the
+	 * thread of the request otherwise.
+	 */
+	private synchronized void play(Game game, Player player, Move move, SearchStatistics searchStatistics,
+			SearchLimits limits, int reply, boolean onEngine, CompletableFuture<Move> future) {
+		if (future.isDone()) {
+			return;
+		}
+		statistics = searchStatistics;
+		if (move != null) {
+			Position start = new Position(move.getStart());
+			Position end = new Position(move.getEnd());
+			boolean isPawnPromotion = move.getPieceMoved() instanceof Pawn && end.getRow() == 0;
+			game.move(player, start, end);
+
+			if (isPawnPromotion) {
+				Piece piece = Piece.createPromotionPiece("q", player.getColour()); // AI promotes always to queen for simplicity
+				game.getLastMove().getEnd().setPiece(piece);
+			}
+			if (!game.getStatus().isEndOfGame()) {
+				ponder = ponderer.start(game, limits, isPawnPromotion ? Moves.NONE : reply, onEngine);
+			}
+		}
+		future.complete(move);
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.deveuge.kingsmarch.ai;
+
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Best moves already found by the searches of every game, by position and
+ * search limits. Many games reach the same positions, above all in the opening,
+ * and a move found by one of them is played by the others without searching
+ * again.
+ * <p>
+ * The cache is bounded by its number of entries and evicts the least valuable
+ * ones by frequency and recency (Window TinyLFU). A position is only looked up
+ * with the same depth and node limits, so every level of play keeps its own
+ * moves, and a deeper search of a position replaces a shallower one. Since
+ * positions are found by their Zobrist key, a cached move is only played when
+ * it is legal in the position.
+ * <p>
+ * Only searches that completed the depth asked for, or found a mate, are
+ * cached: the move of a search stopped by its time, or cancelled, is not the
+ * one a complete search would play. Neither are the levels that add noise to their scores cached, so
+ * that their random choices are not shared by every game.
+ */
+public class BestMoveCache {
+
+	private final Cache<Key, Entry> cache;
+
+	/**
+	 * Position and limits of a search.
+	 *
+	 * @param position long Zobrist key of the position
+	 * @param depth    int Maximum depth of the search
+	 * @param nodes    long Maximum number of nodes of the search
+	 */
+	record Key(long position, int depth, long nodes) {
+
+		Key(long position, SearchLimits limits) {
+			this(position, limits.getDepth(), limits.getMaxNodes());
+		}
+	}
+
+	/**
+	 * Result of a search.
+	 *
+	 * @param move  int Best move
+	 * @param score int Score of the best move, for the side to move
+	 * @param depth int Depth completed
+	 */
+	record Entry(int move, int score, int depth) {
+
+		/**
+		 * Checks if the search ran to the depth of its limits, or stopped before on
+		 * a mate, which a deeper search would not change.
+		 */
+		boolean isComplete(SearchLimits limits) {
+			return depth >= limits.getDepth() || Math.abs(score) >= Search.MATE;
+		}
+	}
+
+	/**
+	 * Creates the cache.
+	 *
+	 * @param maximumSize long Maximum number of positions
+	 */
+	public BestMoveCache(long maximumSize) {
+		// Evictions are done by the threads using the cache, they are cheap
+		this.cache = Caffeine.newBuilder().maximumSize(maximumSize).executor(Runnable::run).recordStats().build();
+	}
+
+	/**
+	 * Publishes the size, hits, misses and evictions of the cache.
+	 *
+	 * @param registry {@link MeterRegistry} Registry the metrics are published to
+	 * @return {@link BestMoveCache} This cache
+	 */
+	public BestMoveCache bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "kingsmarch.best-move");
+		return this;
+	}
+
+	/**
+	 * Looks up the best move of a position.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param limits   {@link SearchLimits} Limits of the search
+	 * @return int Best move, {@link Moves#NONE} if the position is not in the
+	 *         cache or the limits are not cached
+	 */
+	public int get(BitboardPosition position, SearchLimits limits) {
+		if (!isCached(limits)) {
+			return Moves.NONE;
+		}
+		Entry entry = cache.getIfPresent(new Key(position.getKey(), limits));
+		if (entry == null || !entry.isComplete(limits) || !isLegal(position, entry.move())) {
+			return Moves.NONE;
+		}
+		return entry.move();
+	}
+
+	/**
+	 * Stores the best move of a position, unless the search stopped before
+	 * completing the depth of its limits without finding a mate, or a deeper
+	 * search of the position is already cached.
+	 *
+	 * @param position long Zobrist key of the position searched
+	 * @param limits   {@link SearchLimits} Limits of the search
+	 * @param move     int Best move
+	 * @param score    int Score of the best move
+	 * @param depth    int Depth completed
+	 */
+	public void put(long position, SearchLimits limits, int move, int score, int depth) {
+		Entry entry = new Entry(move, score, depth);
+		if (move == Moves.NONE || !entry.isComplete(limits) || !isCached(limits)) {
+			return;
+		}
+		cache.asMap().merge(new Key(position, limits), entry,
+				(cached, found) -> found.depth() >= cached.depth() ? found : cached);
+	}
+
+	/**
+	 * Gets the share of lookups that found their position.
+	 *
+	 * @return double Hit rate, between 0 and 1
+	 */
+	public double getHitRate() {
+		return cache.stats().hitRate();
+	}
+
+	/**
+	 * Gets the number of positions cached.
+	 *
+	 * @return long Number of positions
+	 */
+	public long getSize() {
+		return cache.estimatedSize();
+	}
+
+	/**
+	 * Removes all the positions.
+	 */
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Checks if the moves found with some limits are cached: those of the levels
+	 * with noise are not.
+	 */
+	private static boolean isCached(SearchLimits limits) {
+		return limits.getEvalNoise() == 0;
+	}
+
+	private static boolean isLegal(BitboardPosition position, int move) {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		for (int i = 0; i < count; i++) {
+			if (moves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.deveuge.kingsmarch.ai;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Difficulty levels of the computer player. Each level bounds the depth, the
+ * nodes and the time of the search, so that weaker levels are also cheaper:
+ * a beginner's move costs a small fraction of an expert's one. Weaker levels
+ * search on a single thread and add noise to the scores of the root moves, so
+ * that they do not always play the best move they found. The noise is a share
+ * of the largest positional change of a move, the scale the scores of the
+ * root moves mostly differ by.
+ */
+@AllArgsConstructor
+@Getter
+public enum Difficulty {
+	BEGINNER("Beginner", 2, 2_000, 250, GameAI.MAX_POSITIONAL_SWING / 2, false),
+	EASY("Easy", 3, 10_000, 500, GameAI.MAX_POSITIONAL_SWING / 4, false),
+	MEDIUM("Medium", 4, 60_000, 1_000, GameAI.MAX_POSITIONAL_SWING / 8, true),
+	HARD("Hard", 6, 400_000, 2_000, 0, true),
+	EXPERT("Expert", SearchLimits.MAX_DEPTH, 0, 3_000, 0, true);
+
+	private final String label;
+	/** Maximum depth in plies */
+	private final int maxDepth;
+	/** Maximum number of nodes, 0 for no limit */
+	private final long maxNodes;
+	/** Maximum time in milliseconds */
+	private final long maxTime;
+	/** Largest random offset of the score of a root move */
+	private final int evalNoise;
+	/** Whether the search may use the threads the configuration allows */
+	private final boolean parallel;
+
+	/**
+	 * Gets the limits of a search at this level.
+	 *
+	 * @param limits {@link SearchLimits} Configured limits, whose depth, nodes,
+	 *               time and threads are upper bounds of those of the level
+	 * @return {@link SearchLimits}
+	 */
+	public SearchLimits limits(SearchLimits limits) {
+		return limits.toBuilder().maxDepth(Math.min(maxDepth, limits.getDepth()))
+				.maxNodes(min(maxNodes, limits.getMaxNodes())).maxTime(min(maxTime, limits.getMaxTime()))
+				.evalNoise(evalNoise).threads(parallel ? limits.getThreads() : 1).build();
+	}
+
+	/**
+	 * Gets the lower of two limits, where 0 means no limit.
+	 */
+	private static long min(long limit, long configured) {
+		if (limit == 0 || configured == 0) {
+			return Math.max(limit, configured);
+		}
+		return Math.min(limit, configured);
+	}
+
+}
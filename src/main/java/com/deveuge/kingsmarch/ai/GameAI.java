@@ -1,169 +1,139 @@
 package com.deveuge.kingsmarch.ai;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
 
-import com.deveuge.kingsmarch.engine.Board;
 import com.deveuge.kingsmarch.engine.Game;
 import com.deveuge.kingsmarch.engine.Move;
-import com.deveuge.kingsmarch.engine.Square;
-import com.deveuge.kingsmarch.engine.pieces.Piece;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.pieces.Bishop;
+import com.deveuge.kingsmarch.engine.pieces.King;
+import com.deveuge.kingsmarch.engine.pieces.Knight;
+import com.deveuge.kingsmarch.engine.pieces.Pawn;
+import com.deveuge.kingsmarch.engine.pieces.Queen;
+import com.deveuge.kingsmarch.engine.pieces.Rook;
 import com.deveuge.kingsmarch.engine.types.Colour;
-import com.deveuge.kingsmarch.engine.types.GameStatus;
-import com.deveuge.kingsmarch.engine.util.GameHelper;
 
 public class GameAI {
 	
 	public static final Colour AI_COLOUR = Colour.BLACK;
 	
+	/** Material value by piece type, from the {@code VALUE} constants of the pieces */
+	static final int[] PIECE_VALUES = {
+			Pawn.VALUE, Knight.VALUE, Bishop.VALUE, Rook.VALUE, Queen.VALUE, King.VALUE };
+	private static final int[][][] POSITIONAL_VALUES = {
+			Pawn.POSITIONAL_VALUE, Knight.POSITIONAL_VALUE, Bishop.POSITIONAL_VALUE,
+			Rook.POSITIONAL_VALUE, Queen.POSITIONAL_VALUE, King.POSITIONAL_VALUE };
+	/** Largest positional gain of a piece moving from one square to another, over all the piece types */
+	static final int MAX_POSITIONAL_SWING = maxPositionalSwing();
+	/** Largest positional value of a piece on a square, which the opponent loses with the piece */
+	static final int MAX_POSITIONAL_VALUE = maxPositionalValue();
+	
+	/** Limits of the search when none are given, matching the former fixed depth */
+	public static final SearchLimits DEFAULT_LIMITS = SearchLimits.depth(2);
+	
 	/**
-	 * Gets the next move.
+	 * Gets the next move for the player whose turn it is.
 	 * 
-	 * @param board {@link Game} Current game
+	 * @param game {@link Game} Current game
 	 * @return {@link Move} Next move
 	 */
 	public static Move getNextMove(Game game) {
-        return minimaxRoot(game, 2, -10000, 10000, false);
+        return getNextMove(game, DEFAULT_LIMITS);
 	}
 	
 	/**
-	 * Minimax algorithm root method.
+	 * Gets the next move for the player whose turn it is, searching by iterative
+	 * deepening within the given limits, see {@link Search}.
 	 * 
-	 * @param game	       {@link Game} Current game situation
-	 * @param depth        int Depth at which to search in the recursive tree
-	 * @param alpha        int Minimum score
-	 * @param beta         int Maximum score
-	 * @param isMaximising boolean Whether the player is to maximise or minimise
+	 * @param game   {@link Game} Current game
+	 * @param limits {@link SearchLimits} Limits of the search
 	 * @return {@link Move} Next move
 	 */
-	private static Move minimaxRoot(Game game, int depth, int alpha, int beta, boolean isMaximising) {
-		Board board = game.getBoard();
-		List<Move> possibleMovements = getPossibleMovements(board);
-		List<Move> openingMovements = OpeningBook.getNext(game.getMovesPlayed(AI_COLOUR), possibleMovements);
-		if(openingMovements != null) {
-			possibleMovements = openingMovements;
-		}
-		
-		double bestValue = Integer.MIN_VALUE;
-		Move bestMove = null;
-		
-		for (Move move : possibleMovements) {
-			Board temporalBoard = GameHelper.makeTemporalMove(board, move.getStart(), move.getEnd(), move.getPieceMoved());
-			List<Move> temporalMovesPlayed = new ArrayList<>(game.getMovesPlayed(AI_COLOUR));
-			temporalMovesPlayed.add(move);
-			double value = minimax(temporalBoard, temporalMovesPlayed, depth - 1, alpha, beta, isMaximising);
-			if (value > bestValue) {
-				bestValue = value;
-				bestMove = move;
-			}
-		}
-		return bestMove;
+	public static Move getNextMove(Game game, SearchLimits limits) {
+		return new Search(game, limits).run();
 	}
 	
 	/**
-	 * Minimax algorithm recursive method.
+	 * Gets the next move for the player whose turn it is, sharing a transposition
+	 * table with other searches.
 	 * 
-	 * @param board        {@link Board} Current board situation
-	 * @param historic     {@link List}<{@link Move}> List of movements made by the player
-	 * @param depth        int Depth at which to search in the recursive tree
-	 * @param alpha        int Minimum score
-	 * @param beta         int Maximum score
-	 * @param isMaximising boolean Whether the player is to maximise or minimise
-	 * @return int Best value
+	 * @param game   {@link Game} Current game
+	 * @param limits {@link SearchLimits} Limits of the search
+	 * @param table  {@link TranspositionTable} Shared transposition table
+	 * @return {@link Move} Next move
 	 */
-	private static int minimax(Board board, List<Move> historic, int depth, int alpha, int beta, boolean isMaximising) {
-		if(depth == 0 || GameStatus.get(board, AI_COLOUR.getOpposite()).isEndOfGame()) {
-			return -evaluateBoard(board);
-		}
-		
-		List<Move> possibleMovements = getPossibleMovements(board);
-		List<Move> openingMovements = OpeningBook.getNext(historic, possibleMovements);
-		if(openingMovements != null) {
-			possibleMovements = openingMovements;
-		}
-		
-		if(isMaximising) {
-			int bestValue = Integer.MIN_VALUE;
-			for(Move move : possibleMovements) {
-				int currentValue = calculateMinimaxValue(board, historic, move, depth, alpha, beta, false);
-				if(currentValue > bestValue) {
-					bestValue = currentValue;
-				}
-				alpha = Math.max(alpha, currentValue);
-				if(beta <= alpha) {
-					break;
-				}
-			}
-			return bestValue;
-		} else {
-			int bestValue = Integer.MAX_VALUE;
-			for(Move move : possibleMovements) {
-				int currentValue = calculateMinimaxValue(board, historic, move, depth, alpha, beta, true);
-				if(currentValue < bestValue) {
-					bestValue = currentValue;
-				}
-				beta = Math.min(beta, currentValue);
-				if(beta <= alpha) {
-					break;
-				}
-			}
-			return bestValue;
-		}
+	public static Move getNextMove(Game game, SearchLimits limits, TranspositionTable table) {
+		return new Search(game, limits, table).run();
 	}
 	
 	/**
-	 * Gets the list of legal moves the player can make in the current board state.
+	 * Gets the next move for the player whose turn it is, searching on as many
+	 * threads as the limits give, see {@link ParallelSearch}.
 	 * 
-	 * @param board {@link Board} Current board situation
-	 * @return {@link}List<{@link Move}> List of legal moves
+	 * @param game    {@link Game} Current game
+	 * @param limits  {@link SearchLimits} Limits of the search
+	 * @param table   {@link TranspositionTable} Shared transposition table
+	 * @param helpers {@link ThreadPoolExecutor} Pool of the helper threads
+	 * @return {@link Move} Next move
 	 */
-	private static List<Move> getPossibleMovements(Board board) {
-		List<Move> possibleMovements = new ArrayList<>();
-		
-		for(Square square : board.getOccupiedSquares(AI_COLOUR)) {
-    		Piece piece = square.getPiece();
-    		List<Square> potentialSquares = piece.getPotentialMoves(board, square);
-    		for(Square potentialSquare : potentialSquares) {
-    			if(piece.canMove(board, square, potentialSquare)) {
-    				possibleMovements.add(new Move(square, potentialSquare, piece));
-    			}
-    		}
+	public static Move getNextMove(Game game, SearchLimits limits, TranspositionTable table, ThreadPoolExecutor helpers) {
+		if (limits.getThreads() <= 1) {
+			return getNextMove(game, limits, table);
 		}
-		return possibleMovements;
+		return new ParallelSearch(game, limits, table, helpers).run();
 	}
 	
 	/**
-	 * Calculates the minimax value.
+	 * Calculates the current board value from the point of view of one side:
+	 * material and positional value of its pieces minus those of the opponent.
+	 * Positional tables are written from white's side, rank 8 first.
 	 * 
-	 * @param board        {@link Board} Current board situation
-	 * @param depth        int Depth at which to search in the recursive tree
-	 * @param alpha        int Minimum score
-	 * @param beta         int Maximum score
-	 * @param isMaximising boolean Whether the player is to maximise or minimise
-	 * @return int calculated value
-	 */
-	private static int calculateMinimaxValue(Board board, List<Move> historic, Move move, int depth, int alpha, int beta, boolean isMaximising) {
-		Board temporalBoard = GameHelper.makeTemporalMove(board, move.getStart(), move.getEnd(), move.getPieceMoved());
-		return minimax(temporalBoard, historic, depth - 1, alpha, beta, isMaximising);
-	}
-
-	/**
-	 * Calculates the current board value.
-	 * 
-	 * @param board {@link Board} Current board situation
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Side the value is calculated for
 	 * @return int board value
 	 */
-	private static int evaluateBoard(Board board) {
+	static int evaluateBoard(BitboardPosition position, int colour) {
 	    int totalEvaluation = 0;
-	    Square[][] squares = board.getSquares();
-	    for(Square[] row : squares) {
-	    	for(Square square : row) {
-	    		if(square.getPiece() != null) {
-	    			totalEvaluation += square.getPiece().getBoardValue(square.getRow(), square.getCol());
-	    		}
+	    for(int piece = 0; piece < Bitboards.PIECE_CODES; piece++) {
+	    	int type = Bitboards.typeOf(piece);
+	    	boolean white = Bitboards.colourOf(piece) == Bitboards.WHITE;
+	    	for(long squares = position.getPieces(piece); squares != 0; squares = Bitboards.withoutFirst(squares)) {
+	    		int square = Bitboards.first(squares);
+	    		int row = white ? 7 - Bitboards.row(square) : Bitboards.row(square);
+	    		int value = PIECE_VALUES[type] + POSITIONAL_VALUES[type][row][Bitboards.col(square)];
+	    		totalEvaluation += white ? value : -value;
 	    	}
 	    }
-	    return totalEvaluation;
+	    return colour == Bitboards.WHITE ? totalEvaluation : -totalEvaluation;
+	}
+	
+	private static int maxPositionalSwing() {
+		int swing = 0;
+		for (int[][] table : POSITIONAL_VALUES) {
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for (int[] row : table) {
+				for (int value : row) {
+					min = Math.min(min, value);
+					max = Math.max(max, value);
+				}
+			}
+			swing = Math.max(swing, max - min);
+		}
+		return swing;
+	}
+	
+	private static int maxPositionalValue() {
+		int max = 0;
+		for (int[][] table : POSITIONAL_VALUES) {
+			for (int[] row : table) {
+				for (int value : row) {
+					max = Math.max(max, value);
+				}
+			}
+		}
+		return max;
 	}
 
 }
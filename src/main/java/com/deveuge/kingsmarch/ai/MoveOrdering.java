@@ -0,0 +1,196 @@
+package com.deveuge.kingsmarch.ai;
+
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+/**
+ * Order in which the moves of a position are searched. Alpha-beta prunes the
+ * most when the best move comes first, so moves are sorted by how likely they
+ * are to be good:
+ * <ol>
+ * <li>The move of the {@link TranspositionTable}, best of an earlier search.</li>
+ * <li>Captures and promotions that do not lose material according to
+ * {@link StaticExchange}, most valuable victim first and, for the same victim,
+ * least valuable attacker first (MVV-LVA).</li>
+ * <li>Killer moves: quiet moves that caused a cutoff at the same ply in
+ * another branch.</li>
+ * <li>The other quiet moves, by how often they caused a cutoff anywhere in the
+ * search (history heuristic).</li>
+ * <li>Captures that lose material, by MVV-LVA.</li>
+ * </ol>
+ * The killers and the history are learnt during a search, so there is one
+ * instance per search. The search itself picks the moves in this order with a
+ * {@link MovePicker}, which generates them stage by stage.
+ */
+public class MoveOrdering {
+
+	private static final int TABLE_MOVE_SCORE = 1 << 30;
+	private static final int CAPTURE_SCORE = 1 << 24;
+	private static final int KILLER_SCORE = 1 << 20;
+	private static final int BAD_CAPTURE_SCORE = -(1 << 24);
+	/** History scores are halved when one reaches this value, so they stay below the killers */
+	private static final int HISTORY_LIMIT = 1 << 16;
+	private static final int KILLERS_PER_PLY = 2;
+
+	private final int[][] killers = new int[Search.MAX_PLY + 1][KILLERS_PER_PLY];
+	/** Cutoffs of each quiet move by colour, starting and destination square */
+	private final int[][][] history = new int[2][64][64];
+	private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+	private final StaticExchange exchange = new StaticExchange();
+
+	/**
+	 * Sorts the moves of a position, best first.
+	 *
+	 * @param position   {@link BitboardPosition} Current position
+	 * @param moves      int[] Moves of the position
+	 * @param count      int Number of moves
+	 * @param tableMove  int Move of the transposition table, {@link Moves#NONE} if none
+	 * @param ply        int Distance from the root
+	 */
+	public void sort(BitboardPosition position, int[] moves, int count, int tableMove, int ply) {
+		int colour = position.getSideToMove();
+		for (int i = 0; i < count; i++) {
+			scores[i] = score(position, moves[i], tableMove, ply, colour);
+		}
+		// Insertion sort, the lists are short
+		for (int i = 1; i < count; i++) {
+			int move = moves[i];
+			int score = scores[i];
+			int j = i - 1;
+			while (j >= 0 && scores[j] < score) {
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			scores[j + 1] = score;
+		}
+	}
+
+	/**
+	 * Learns from a move that caused a beta cutoff. Only quiet moves are kept, as
+	 * captures are already ordered by MVV-LVA.
+	 *
+	 * @param move   int Move that caused the cutoff
+	 * @param colour int Side that played it
+	 * @param depth  int Remaining depth, deeper cutoffs weigh more
+	 * @param ply    int Distance from the root
+	 */
+	public void onCutoff(int move, int colour, int depth, int ply) {
+		if (isTactical(move)) {
+			return;
+		}
+		int[] plyKillers = killers[ply];
+		if (plyKillers[0] != move) {
+			plyKillers[1] = plyKillers[0];
+			plyKillers[0] = move;
+		}
+		int[] fromHistory = history[colour][Moves.from(move)];
+		fromHistory[Moves.to(move)] += depth * depth;
+		if (fromHistory[Moves.to(move)] >= HISTORY_LIMIT) {
+			ageHistory();
+		}
+	}
+
+	/**
+	 * Checks if a move is one of the killer moves of a ply.
+	 *
+	 * @param move int Encoded move
+	 * @param ply  int Distance from the root
+	 * @return true if it is a killer move, false otherwise
+	 */
+	public boolean isKiller(int move, int ply) {
+		return move == killers[ply][0] || move == killers[ply][1];
+	}
+
+	/**
+	 * Gets a killer move of a ply.
+	 *
+	 * @param ply   int Distance from the root
+	 * @param index int 0 for the latest killer move, 1 for the previous one
+	 * @return int Encoded move, {@link Moves#NONE} if there is none
+	 */
+	public int getKiller(int ply, int index) {
+		return killers[ply][index];
+	}
+
+	/**
+	 * Gets the history score of a quiet move.
+	 *
+	 * @param move   int Encoded move
+	 * @param colour int Side that plays it
+	 * @return int Score, higher for moves that caused more cutoffs
+	 */
+	public int getHistory(int move, int colour) {
+		return history[colour][Moves.from(move)][Moves.to(move)];
+	}
+
+	private int score(BitboardPosition position, int move, int tableMove, int ply, int colour) {
+		if (move == tableMove) {
+			return TABLE_MOVE_SCORE;
+		}
+		if (isTactical(move)) {
+			return (isLosingCapture(position, move) ? BAD_CAPTURE_SCORE : CAPTURE_SCORE) + mvvLva(position, move);
+		}
+		if (move == killers[ply][0]) {
+			return KILLER_SCORE + 1;
+		}
+		if (move == killers[ply][1]) {
+			return KILLER_SCORE;
+		}
+		return history[colour][Moves.from(move)][Moves.to(move)];
+	}
+
+	/**
+	 * Scores a capture or a promotion by the value of the victim, and then by the
+	 * value of the attacker.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param move     int Capture or promotion
+	 * @return int Score, higher for better captures
+	 */
+	static int mvvLva(BitboardPosition position, int move) {
+		int attacker = Bitboards.typeOf(position.getPiece(Moves.from(move)));
+		int victim = Moves.isEnPassant(move) ? Bitboards.PAWN
+				: Moves.isCapture(move) ? Bitboards.typeOf(position.getPiece(Moves.to(move))) : Bitboards.NO_PIECE;
+		int score = victim == Bitboards.NO_PIECE ? 0 : GameAI.PIECE_VALUES[victim] * 1000 - GameAI.PIECE_VALUES[attacker];
+		if (Moves.isPromotion(move)) {
+			score += GameAI.PIECE_VALUES[Moves.promotionType(move)] * 1000;
+		}
+		return score;
+	}
+
+	/**
+	 * Checks if a capture loses material. Taking a piece worth at least as much as
+	 * the capturing one never does, so the exchange is only evaluated otherwise.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param move     int Encoded move
+	 * @return true if the move is a capture that loses material, false otherwise
+	 */
+	boolean isLosingCapture(BitboardPosition position, int move) {
+		if (!Moves.isCapture(move) || Moves.isEnPassant(move)) {
+			return false;
+		}
+		int attacker = Bitboards.typeOf(position.getPiece(Moves.from(move)));
+		int victim = Bitboards.typeOf(position.getPiece(Moves.to(move)));
+		return GameAI.PIECE_VALUES[victim] < GameAI.PIECE_VALUES[attacker] && exchange.evaluate(position, move) < 0;
+	}
+
+	static boolean isTactical(int move) {
+		return Moves.isCapture(move) || Moves.isPromotion(move);
+	}
+
+	private void ageHistory() {
+		for (int[][] colourHistory : history) {
+			for (int[] fromHistory : colourHistory) {
+				for (int to = 0; to < fromHistory.length; to++) {
+					fromHistory[to] >>= 1;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+package com.deveuge.kingsmarch.ai;
+
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+/**
+ * Picks the moves of a node of the search one at a time, in the order of
+ * {@link MoveOrdering}, generating them in stages:
+ * <ol>
+ * <li>The move of the {@link TranspositionTable}, checked against the position
+ * without generating any move.</li>
+ * <li>Captures and promotions, generated together and picked by MVV-LVA. Those
+ * that lose material are set aside when picked.</li>
+ * <li>Killer moves, checked against the position like the table move.</li>
+ * <li>Quiet moves, generated only now and picked by history.</li>
+ * <li>The captures set aside.</li>
+ * </ol>
+ * Most nodes that fail high do so on the table move or on a capture, so the
+ * quiet moves, the bulk of a position, are usually never generated. Moves are
+ * pseudo-legal until they are picked, and only the picked ones are checked for
+ * legality.
+ * <p>
+ * A search keeps one picker per ply, reused by every node of that ply.
+ */
+public class MovePicker {
+
+	private static final int TABLE_MOVE = 0;
+	private static final int GENERATE_CAPTURES = 1;
+	private static final int GOOD_CAPTURES = 2;
+	private static final int KILLERS = 3;
+	private static final int GENERATE_QUIETS = 4;
+	private static final int QUIETS = 5;
+	private static final int BAD_CAPTURES = 6;
+	private static final int DONE = 7;
+
+	private final MoveOrdering ordering;
+	/** Captures and promotions, those set aside at the start of the buffer */
+	private final int[] captures = new int[MoveGenerator.MAX_MOVES];
+	private final int[] quiets = new int[MoveGenerator.MAX_MOVES];
+	/** Scores of the moves of the current stage */
+	private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+
+	private BitboardPosition position;
+	private int colour;
+	private int tableMove;
+	private int ply;
+	private int stage;
+	/** Next move of the current stage, and end of its moves */
+	private int current;
+	private int end;
+	/** Number of captures set aside for the last stage */
+	private int badCaptures;
+	private int killer;
+	/** Pinned pieces and evasion mask of the position, computed with the first legality check */
+	private boolean legalityInfo;
+	private long pinned;
+	private long evasions;
+
+	/**
+	 * Creates a picker.
+	 *
+	 * @param ordering {@link MoveOrdering} Killers and history of the search
+	 */
+	public MovePicker(MoveOrdering ordering) {
+		this.ordering = ordering;
+	}
+
+	/**
+	 * Starts picking the moves of a position.
+	 *
+	 * @param position  {@link BitboardPosition} Current position, which must not
+	 *                  change until its moves are picked, except by making and
+	 *                  unmaking the picked ones
+	 * @param tableMove int Move of the transposition table, {@link Moves#NONE} if
+	 *                  none
+	 * @param ply       int Distance from the root
+	 */
+	public void init(BitboardPosition position, int tableMove, int ply) {
+		this.position = position;
+		this.colour = position.getSideToMove();
+		this.tableMove = tableMove;
+		this.ply = ply;
+		this.stage = TABLE_MOVE;
+		this.current = 0;
+		this.end = 0;
+		this.badCaptures = 0;
+		this.killer = 0;
+		this.legalityInfo = false;
+	}
+
+	/**
+	 * Picks the next legal move.
+	 *
+	 * @return int Encoded move, {@link Moves#NONE} when all the moves have been
+	 *         picked
+	 */
+	public int next() {
+		while (true) {
+			switch (stage) {
+			case TABLE_MOVE:
+				stage = GENERATE_CAPTURES;
+				if (tableMove != Moves.NONE && MoveGenerator.isPseudoLegal(position, colour, tableMove)
+						&& isLegal(tableMove)) {
+					return tableMove;
+				}
+				break;
+			case GENERATE_CAPTURES:
+				end = MoveGenerator.generateCaptures(position, colour, captures);
+				for (int i = 0; i < end; i++) {
+					scores[i] = MoveOrdering.mvvLva(position, captures[i]);
+				}
+				current = 0;
+				stage = GOOD_CAPTURES;
+				break;
+			case GOOD_CAPTURES:
+				while (current < end) {
+					int move = pickBest(captures);
+					if (move == tableMove) {
+						continue;
+					}
+					if (ordering.isLosingCapture(position, move)) {
+						captures[badCaptures++] = move;
+						continue;
+					}
+					if (isLegal(move)) {
+						return move;
+					}
+				}
+				stage = KILLERS;
+				break;
+			case KILLERS:
+				while (killer < 2) {
+					int move = ordering.getKiller(ply, killer++);
+					if (move != Moves.NONE && move != tableMove && MoveGenerator.isPseudoLegal(position, colour, move)
+							&& isLegal(move)) {
+						return move;
+					}
+				}
+				stage = GENERATE_QUIETS;
+				break;
+			case GENERATE_QUIETS:
+				end = MoveGenerator.generateQuiets(position, colour, quiets);
+				for (int i = 0; i < end; i++) {
+					scores[i] = ordering.getHistory(quiets[i], colour);
+				}
+				current = 0;
+				stage = QUIETS;
+				break;
+			case QUIETS:
+				while (current < end) {
+					int move = pickBest(quiets);
+					if (move != tableMove && !ordering.isKiller(move, ply) && isLegal(move)) {
+						return move;
+					}
+				}
+				current = 0;
+				stage = BAD_CAPTURES;
+				break;
+			case BAD_CAPTURES:
+				while (current < badCaptures) {
+					// Already in MVV-LVA order, as they were set aside when picked
+					int move = captures[current++];
+					if (isLegal(move)) {
+						return move;
+					}
+				}
+				stage = DONE;
+				break;
+			default:
+				return Moves.NONE;
+			}
+		}
+	}
+
+	/**
+	 * Takes the move with the highest score among those left in the current
+	 * stage. Moves are picked one at a time rather than sorted, as a cutoff
+	 * usually leaves most of them unpicked.
+	 */
+	private int pickBest(int[] moves) {
+		int best = current;
+		for (int i = current + 1; i < end; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		int move = moves[best];
+		int score = scores[best];
+		moves[best] = moves[current];
+		scores[best] = scores[current];
+		moves[current] = move;
+		scores[current] = score;
+		current++;
+		return move;
+	}
+
+	private boolean isLegal(int move) {
+		if (!legalityInfo) {
+			pinned = position.getPinned(colour);
+			evasions = MoveGenerator.getEvasions(position, colour);
+			legalityInfo = true;
+		}
+		return MoveGenerator.isLegal(position, colour, pinned, evasions, move);
+	}
+
+}
@@ -1,7 +1,5 @@
 package com.deveuge.kingsmarch.ai;
 
-import com.deveuge.kingsmarch.engine.types.Colour;
-
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -14,32 +12,27 @@ public class Opening {
 	private final String fen;
 	private final String[] moves;
 	
-	private final static String LETTERS = "hgfedcba";
-	
-	public Opening(String line, Colour colour) {
+	public Opening(String line) {
 		String[] content = line.split("\\s*,\\s*");
 		this.eco = content[0].replaceAll("\"", "");
 		this.name = content[1].replaceAll("\"", "");
 		this.fen = content[2].replaceAll("\"", "");
-		this.moves = parseMoves(content[3].replaceAll("\"", ""), colour.isWhite());
+		this.moves = parseMoves(content[3].replaceAll("\"", ""));
 	}
 	
-	private String[] parseMoves(String movesString, boolean isWhite) {
+	/**
+	 * Parses the moves of the opening, played alternately by white and black from
+	 * the initial position, into the notation of {@link com.deveuge.kingsmarch.engine.Move}.
+	 * 
+	 * @param movesString {@link String} Moves separated by spaces, such as "e2e4 e7e5"
+	 * @return {@link String}[] Moves such as "e2-e4"
+	 */
+	private String[] parseMoves(String movesString) {
 		String[] moves = movesString.split(" ");
 		for(int i = 0; i < moves.length; i++) {
-			String start = moves[i].substring(0, 2);
-			String end = moves[i].substring(2);
-			moves[i] = isWhite
-					? String.format("%s-%s", start, end)
-					: String.format("%s-%s", invertNotation(start), invertNotation(end));
+			moves[i] = String.format("%s-%s", moves[i].substring(0, 2), moves[i].substring(2));
 		}
 		return moves;
 	}
-	
-	private String invertNotation(String source) {
-		int col = Integer.valueOf(source.charAt(0) - 'a');
-		int row = 9 - Integer.valueOf(source.substring(1));
-		return String.format("%s%s", LETTERS.charAt(col), row);
-	}
 
 }
@@ -32,7 +32,7 @@ public class OpeningBook {
         try {
             File file = ResourceUtils.getFile("classpath:Openings.txt");
             Stream<String> lines = Files.lines(file.toPath());
-            lines.forEach(l -> openings.add(new Opening(l, GameAI.AI_COLOUR)));
+            lines.forEach(l -> openings.add(new Opening(l)));
             lines.close();
         } catch (IOException e) {
 			e.printStackTrace();
@@ -42,7 +42,7 @@ public class OpeningBook {
 	/**
 	 * Gets the next opening movements
 	 * 
-	 * @param historic        {@link List}<{@link Move}> List of movements made by the player
+	 * @param historic        {@link List}<{@link Move}> List of movements made in the game by both players
 	 * @param calculatedMoves {@link List}<{@link Move}> List of possible movements
 	 * @return {@link List}<{@link Move}>
 	 */
@@ -66,7 +66,7 @@ public class OpeningBook {
 	/**
 	 * Gets the opening movements
 	 * 
-	 * @param historic        {@link List}<{@link Move}> List of movements made by the player
+	 * @param historic        {@link List}<{@link Move}> List of movements made in the game by both players
 	 * @param calculatedMoves {@link List}<{@link Move}> List of possible movements
 	 * @return {@link List}<{@link Move}>
 	 */
@@ -88,7 +88,7 @@ public class OpeningBook {
 	/**
 	 * Check if the succession of movements corresponds to the opening
 	 * 
-	 * @param historic {@link List}<{@link Move}> List of movements made by the player
+	 * @param historic {@link List}<{@link Move}> List of movements made in the game by both players
 	 * @param notation {@link String}[] List of movements that are part of the opening
 	 * @param position int Position index within the opening
 	 * @return true if matches the historic, false otherwise
@@ -0,0 +1,158 @@
+package com.deveuge.kingsmarch.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.Move;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+import lombok.Getter;
+
+/**
+ * Search of the best move on several threads (Lazy SMP). Every thread runs its
+ * own {@link Search} of the same position, and they only cooperate through the
+ * {@link TranspositionTable} they share: the results one thread stores give
+ * cutoffs and move ordering to the others. Every other thread starts one depth
+ * deeper, so that the threads spread over more of the tree.
+ * <p>
+ * The calling thread runs the main search, and the helpers run on a pool whose
+ * size caps the threads of all the searches of the application. Helpers that
+ * find the pool busy with other searches are dropped rather than queued, as
+ * they would only start once the main search no longer needs them. When the main
+ * search ends, the helpers are stopped, and the move of the thread that
+ * completed the deepest search is played.
+ */
+public class ParallelSearch {
+
+	private final List<Search> searches = new ArrayList<>();
+	/** Helpers started on the pool */
+	private final List<Search> started = new ArrayList<>();
+	private final TranspositionTable table;
+	private final ThreadPoolExecutor helpers;
+
+	/** Threads of the search, fewer than requested when the pool of helpers is smaller or busy */
+	@Getter
+	private int threads;
+	/** Nodes searched by all the threads */
+	@Getter
+	private long nodes;
+	/** Deepest depth completed by a thread */
+	@Getter
+	private int completedDepth;
+	/** Thread whose move is played */
+	private Search best;
+
+	/**
+	 * Creates a parallel search.
+	 *
+	 * @param game    {@link Game} Current game
+	 * @param limits  {@link SearchLimits} Limits of the search, including the
+	 *                number of threads, at least one
+	 * @param table   {@link TranspositionTable} Table shared by the threads
+	 * @param helpers {@link ThreadPoolExecutor} Pool of the helper threads, which
+	 *                caps their number
+	 */
+	public ParallelSearch(Game game, SearchLimits limits, TranspositionTable table, ThreadPoolExecutor helpers) {
+		this.table = table;
+		this.helpers = helpers;
+		int threads = Math.max(1, Math.min(limits.getThreads(), helpers.getMaximumPoolSize() + 1));
+		long noiseSeed = ThreadLocalRandom.current().nextLong();
+		for (int id = 0; id < threads; id++) {
+			Search search = new Search(game, limits, table);
+			search.setThread(id, noiseSeed);
+			searches.add(search);
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Stops all the threads as soon as possible.
+	 */
+	public void stop() {
+		searches.forEach(Search::stop);
+	}
+
+	/**
+	 * Runs the search.
+	 *
+	 * @return {@link Move} Best move, null if the side to move has no legal moves
+	 */
+	public Move run() {
+		List<CompletableFuture<Move>> results = new ArrayList<>();
+		for (Search helper : searches.subList(1, searches.size())) {
+			try {
+				results.add(CompletableFuture.supplyAsync(() -> helper.isStopped() ? null : helper.run(), helpers));
+				started.add(helper);
+			} catch (RejectedExecutionException e) {
+				helper.stop();
+				threads--;
+			}
+		}
+
+		Search main = searches.get(0);
+		Move bestMove = main.run();
+		best = main;
+		searches.forEach(Search::stop);
+		completedDepth = main.getCompletedDepth();
+		nodes = main.getNodes();
+		for (int i = 0; i < results.size(); i++) {
+			Search helper = started.get(i);
+			Move move = results.get(i).join();
+			nodes += helper.getNodes();
+			if (move != null && helper.getCompletedDepth() > completedDepth) {
+				completedDepth = helper.getCompletedDepth();
+				bestMove = move;
+				best = helper;
+			}
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Gets the statistics of all the threads merged, with the times of the main
+	 * thread.
+	 *
+	 * @return {@link SearchStatistics} Statistics so far
+	 */
+	public SearchStatistics getStatistics() {
+		SearchStatistics statistics = searches.get(0).getStatistics();
+		for (Search helper : started) {
+			statistics.merge(helper.getStatistics());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Gets the move played, from the thread that found it.
+	 *
+	 * @return int Encoded move, {@link Moves#NONE} if no depth was completed
+	 */
+	int getBestMove() {
+		return best == null ? Moves.NONE : best.getBestMove();
+	}
+
+	/**
+	 * Gets the score of the move played, from the thread that found it.
+	 *
+	 * @return int Score for the side to move
+	 */
+	int getScore() {
+		return best == null ? 0 : best.getScore();
+	}
+
+	/**
+	 * Gets the reply of the opponent expected after the move played, from the
+	 * thread that found the move.
+	 *
+	 * @return int Encoded move, {@link Moves#NONE} if there is none
+	 */
+	int getPonderMove() {
+		return best == null ? Moves.NONE : best.getPonderMove();
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.deveuge.kingsmarch.ai;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.Move;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+import lombok.Getter;
+
+/**
+ * Pondering: once the computer has moved, the position after the reply it
+ * expects from the player is searched while the player thinks. The search
+ * fills the shared {@link TranspositionTable}, and if the player does play the
+ * expected reply (a ponder hit) and the search has already run to its limits,
+ * its move is played at once.
+ * <p>
+ * Pondering searches run on a pool of low priority threads with no queue: when
+ * all of them are busy, a game simply does not ponder. Pondering is also
+ * skipped, and the searches in progress are stopped, when the engine executor
+ * is busy with the moves actually asked for. A game ponders one position at a
+ * time, within the limits of its own moves.
+ */
+public class Ponderer {
+
+	private final TranspositionTable table;
+	private final ThreadPoolExecutor executor;
+	private final ThreadPoolExecutor engine;
+	private final Set<Ponder> running = ConcurrentHashMap.newKeySet();
+
+	/** Whether the games ponder */
+	@Getter
+	private final boolean enabled;
+
+	/**
+	 * Creates the ponderer.
+	 *
+	 * @param enabled  boolean Whether the games ponder
+	 * @param table    {@link TranspositionTable} Table shared with the searches of
+	 *                 the computer's moves
+	 * @param executor {@link ThreadPoolExecutor} Pool of the pondering threads,
+	 *                 with no queue
+	 * @param engine   {@link ThreadPoolExecutor} Engine executor, whose load
+	 *                 turns pondering off
+	 */
+	public Ponderer(boolean enabled, TranspositionTable table, ThreadPoolExecutor executor, ThreadPoolExecutor engine) {
+		this.enabled = enabled;
+		this.table = table;
+		this.executor = executor;
+		this.engine = engine;
+	}
+
+	/**
+	 * Starts pondering on the reply expected after the computer's move.
+	 *
+	 * @param game     {@link Game} Game, after the computer's move
+	 * @param limits   {@link SearchLimits} Limits of the computer's moves, which
+	 *                 bound the pondering search too, on a single thread
+	 * @param reply    int Expected reply of the player
+	 * @param onEngine boolean Whether it is called from an engine thread, which
+	 *                 is about to be free and does not count as busy
+	 * @return {@link Ponder} Pondering search, null if the game does not ponder
+	 */
+	Ponder start(Game game, SearchLimits limits, int reply, boolean onEngine) {
+		if (!enabled || reply == Moves.NONE || isBusy(onEngine ? 1 : 0)) {
+			return null;
+		}
+		Search search = new Search(game, limits.toBuilder().threads(1).build(), table);
+		if (!search.ponder(reply)) {
+			return null;
+		}
+		Ponder ponder = new Ponder(search, reply);
+		running.add(ponder);
+		try {
+			executor.execute(ponder);
+		} catch (RejectedExecutionException e) {
+			running.remove(ponder);
+			return null;
+		}
+		return ponder;
+	}
+
+	/**
+	 * Stops all the pondering searches if the engine executor is busy.
+	 */
+	void checkLoad() {
+		if (isBusy()) {
+			running.forEach(Ponder::stop);
+		}
+	}
+
+	/**
+	 * Checks if the engine executor is busy: all its threads are searching or
+	 * moves are waiting for one.
+	 *
+	 * @return boolean Whether pondering has to be off
+	 */
+	public boolean isBusy() {
+		return isBusy(0);
+	}
+
+	/**
+	 * Checks if the engine executor is busy, leaving out the threads of the
+	 * caller.
+	 */
+	private boolean isBusy(int callers) {
+		return !engine.getQueue().isEmpty() || engine.getActiveCount() - callers >= engine.getMaximumPoolSize();
+	}
+
+	/**
+	 * Gets the number of pondering searches in progress.
+	 *
+	 * @return int Number of searches
+	 */
+	public int getRunning() {
+		return running.size();
+	}
+
+	/**
+	 * Pondering search of a game.
+	 */
+	class Ponder implements Runnable {
+
+		private final Search search;
+		/** Expected reply of the player */
+		@Getter
+		private final int reply;
+		/** Zobrist key of the position after the expected reply */
+		private final long key;
+		/** Best move, {@link Moves#NONE} if the search was stopped before reaching its limits */
+		private final CompletableFuture<Integer> result = new CompletableFuture<>();
+		private volatile boolean stopped;
+
+		private Ponder(Search search, int reply) {
+			this.search = search;
+			this.reply = reply;
+			this.key = search.getPositionKey();
+		}
+
+		@Override
+		public void run() {
+			try {
+				int move = stopped ? Moves.NONE : search.search();
+				result.complete(stopped ? Moves.NONE : move);
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+			} finally {
+				running.remove(this);
+			}
+		}
+
+		/**
+		 * Stops the search, which gives up its thread as soon as possible.
+		 */
+		void stop() {
+			stopped = true;
+			search.stop();
+			running.remove(this);
+		}
+
+		/**
+		 * Ends pondering when the player has moved. If the player played the
+		 * expected reply and the search has already run to its limits, its move is
+		 * the computer's reply.
+		 *
+		 * @param game {@link Game} Game, after the player's move
+		 * @return {@link Move} Move found, null if it was not a ponder hit or the
+		 *         search had not finished
+		 */
+		Move hit(Game game) {
+			boolean finished = result.isDone() && !result.isCompletedExceptionally();
+			stop();
+			if (!finished || game.getBoard().getPosition().getKey() != key) {
+				return null;
+			}
+			int move = result.join();
+			return move == Moves.NONE ? null : game.getBoard().toMove(move);
+		}
+
+		/**
+		 * Gets the reply of the player expected after the move found.
+		 *
+		 * @return int Encoded move, {@link Moves#NONE} if there is none
+		 */
+		int getPonderMove() {
+			return search.getPonderMove();
+		}
+
+		/**
+		 * Gets the statistics of the search.
+		 *
+		 * @return {@link SearchStatistics} Statistics so far
+		 */
+		SearchStatistics getStatistics() {
+			return search.getStatistics();
+		}
+
+	}
+
+}
@@ -0,0 +1,869 @@
+package com.deveuge.kingsmarch.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.Move;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+import com.deveuge.kingsmarch.engine.pieces.Queen;
+
+import lombok.Getter;
+
+/**
+ * Search of the best move of a game by iterative deepening: the position is
+ * searched to depth 1, 2, 3... until a limit of {@link SearchLimits} is reached
+ * or {@link #stop()} is called. The move played is the best move of the last
+ * depth that was completed, so stopping the search at any time still gives a
+ * sound move.
+ * <p>
+ * Each depth is a principal variation search on a working copy of the
+ * position, where moves are made and taken back in place using one
+ * preallocated move buffer per ply. The window of each depth is a narrow
+ * aspiration window around the score of the previous one, widened when the
+ * score falls outside it. Away from the principal variation the search is
+ * selective: null-move pruning, late move reductions and futility pruning, each
+ * of which can be turned off in the {@link SearchLimits}. Results are kept in a
+ * {@link TranspositionTable}, which gives cutoffs when a position is reached
+ * again and the move to search first at the next depth. The other moves are
+ * sorted by {@link MoveOrdering}.
+ * <p>
+ * Positions at the end of the main search are not evaluated in the middle of
+ * an exchange: a quiescence search goes on with captures and promotions until
+ * the position is quiet.
+ * <p>
+ * Weaker levels of play add a random offset to the score of every root move,
+ * fixed for the whole search, so that a move slightly worse than the best one
+ * is sometimes played.
+ * <p>
+ * A search can also ponder: search the position after the reply the opponent
+ * is expected to play, while the opponent thinks, see {@link Ponderer}.
+ */
+public class Search {
+
+	/** Score above any evaluation, used as the initial search window */
+	static final int INFINITY = 1_000_000;
+	/**
+	 * Lowest score of a mate: being checkmated at a ply scores -MATE minus the
+	 * plies left to {@link #MAX_PLY}, so that faster mates are preferred
+	 */
+	static final int MATE = 100_000;
+	/** Deepest ply, main search and quiescence search together */
+	static final int MAX_PLY = SearchLimits.MAX_DEPTH + 32;
+	/** Number of nodes between two checks of the time limit */
+	private static final int TIME_CHECK_INTERVAL = 1024;
+	/** Maximum number of quiescence nodes below a leaf of the main search */
+	private static final int QUIESCENCE_MAX_NODES = 4096;
+	/**
+	 * Margin of delta pruning: a capture is skipped if even winning this much more
+	 * than the piece taken would not raise alpha. It is the most a capture can
+	 * change the positional part of the evaluation, which outweighs a pawn: the
+	 * capturing piece reaching its best square and the piece taken being on its
+	 * own best one.
+	 */
+	private static final int DELTA_MARGIN = GameAI.MAX_POSITIONAL_SWING + GameAI.MAX_POSITIONAL_VALUE;
+	/** First depth searched with an aspiration window, the scores of shallower depths are too unstable */
+	private static final int ASPIRATION_DEPTH = 4;
+	/**
+	 * Initial half-width of the aspiration window, doubled on every fail. The
+	 * scores of consecutive depths mostly differ by positional values, a quarter
+	 * of what a single move may change them.
+	 */
+	private static final int ASPIRATION_WINDOW = GameAI.MAX_POSITIONAL_SWING / 4;
+	/** Minimum depth of a null move search, and its reduction besides one ply more every 6 plies */
+	private static final int NULL_MOVE_DEPTH = 3;
+	private static final int NULL_MOVE_REDUCTION = 2;
+	/**
+	 * Maximum depth of futility pruning, and its margin per ply: the most a quiet
+	 * move can change the evaluation, moving a piece from its worst square to its
+	 * best one
+	 */
+	private static final int FUTILITY_DEPTH = 3;
+	private static final int FUTILITY_MARGIN = GameAI.MAX_POSITIONAL_SWING;
+	/** Minimum depth of late move reductions, and number of moves searched before them */
+	private static final int LMR_DEPTH = 3;
+	private static final int LMR_MOVES = 3;
+
+	/** Board of the game, whose squares give the moves found */
+	private final Board board;
+	/** Root moves of the opening book, null if it has none */
+	private final int[] openingMoves;
+	private final SearchLimits limits;
+	private final TranspositionTable table;
+	private final BitboardPosition position;
+	private final MoveOrdering ordering = new MoveOrdering();
+	private final int[][] moveBuffers = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+	private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+	/** Principal variation of each ply being searched, from the ply to the end of the line */
+	private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+	private final int[] pvLength = new int[MAX_PLY + 1];
+	/** Whether the move leading from each ply to the next one is a null move */
+	private final boolean[] nullMoveMade = new boolean[MAX_PLY + 1];
+	/** Principal variation of the last completed depth */
+	private int[] principalVariation = new int[0];
+	/** Time spent on each completed depth in nanoseconds, the first one being depth 1 */
+	private final long[] iterationTimes = new long[SearchLimits.MAX_DEPTH];
+
+	private volatile boolean stopped;
+	private long deadline;
+	private long startTime;
+	private long elapsedTime;
+	/** First depth of the iterative deepening, varied between the threads of a parallel search */
+	private int firstDepth = 1;
+	/** Node count above which the current quiescence search stands pat */
+	private long quiescenceNodeLimit;
+	/** Seed of the noise of the root moves, the same for all the threads of a parallel search */
+	private long noiseSeed = ThreadLocalRandom.current().nextLong();
+	/** Whether the position searched is the one after the expected reply of the opponent */
+	private boolean pondering;
+
+	/** Nodes searched so far */
+	@Getter
+	private long nodes;
+	/** Nodes searched so far by the quiescence search, included in {@link #nodes} */
+	@Getter
+	private long quiescenceNodes;
+	/** Last depth that was completed */
+	@Getter
+	private int completedDepth;
+	/** Deepest ply reached, quiescence search included */
+	@Getter
+	private int selectiveDepth;
+	/** Score of the best move at the last completed depth, from the point of view of the side to move */
+	@Getter
+	private int score;
+	private int iterationScore;
+	/** Searches of a depth repeated with a wider window, because the score fell outside the aspiration window */
+	@Getter
+	private long aspirationResearches;
+	/** Nodes cut by each selective search technique, and moves searched to a reduced depth */
+	@Getter
+	private long nullMoveCutoffs;
+	@Getter
+	private long reverseFutilityPrunes;
+	@Getter
+	private long futilityPrunes;
+	@Getter
+	private long lateMoveReductions;
+	/** Beta cutoffs, in total and on the first move searched */
+	@Getter
+	private long cutoffs;
+	@Getter
+	private long firstMoveCutoffs;
+	/** Lookups in the transposition table, and those that found their position */
+	@Getter
+	private long tableProbes;
+	@Getter
+	private long tableHits;
+
+	/**
+	 * Creates a search with a transposition table of its own.
+	 * 
+	 * @param game   {@link Game} Current game
+	 * @param limits {@link SearchLimits} Limits of the search
+	 */
+	public Search(Game game, SearchLimits limits) {
+		this(game, limits, new TranspositionTable(1));
+	}
+
+	/**
+	 * Creates a search. All it needs of the game is taken here, on the thread
+	 * creating it, so that the search does not read the game while it may
+	 * change.
+	 * 
+	 * @param game   {@link Game} Current game
+	 * @param limits {@link SearchLimits} Limits of the search
+	 * @param table  {@link TranspositionTable} Table shared with other searches
+	 */
+	public Search(Game game, SearchLimits limits, TranspositionTable table) {
+		this.board = game.getBoard();
+		this.limits = limits;
+		this.table = table;
+		this.position = new BitboardPosition(board.getPosition());
+		this.openingMoves = getOpeningMoves(game);
+		for (int ply = 0; ply <= MAX_PLY; ply++) {
+			pickers[ply] = new MovePicker(ordering);
+		}
+	}
+
+	/**
+	 * Stops the search as soon as possible. It can be called from any thread; the
+	 * search returns the best move of the last completed depth.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Makes this search one of the threads of a {@link ParallelSearch}: every
+	 * other thread starts one depth deeper, so that the threads do not search the
+	 * same depths in lockstep. All the threads give the root moves the same
+	 * noise.
+	 *
+	 * @param id        int Number of the thread, 0 for the main thread
+	 * @param noiseSeed long Seed of the noise of the root moves
+	 */
+	void setThread(int id, long noiseSeed) {
+		firstDepth = 1 + id % 2;
+		this.noiseSeed = noiseSeed;
+	}
+
+	/**
+	 * Gets the principal variation of the last completed depth: the best move and
+	 * the best replies expected from both sides.
+	 *
+	 * @return {@link List}<{@link String}> Moves of the line in coordinate
+	 *         notation, e.g. <code>e2-e4</code>
+	 */
+	public List<String> getPrincipalVariation() {
+		List<String> line = new ArrayList<>(principalVariation.length);
+		for (int move : principalVariation) {
+			line.add(Moves.toNotation(move));
+		}
+		return line;
+	}
+
+	/**
+	 * Gets the Zobrist key of the position searched, which is the one after the
+	 * expected reply when pondering. It is only meaningful when the search is not
+	 * running.
+	 *
+	 * @return long Zobrist key
+	 */
+	long getPositionKey() {
+		return position.getKey();
+	}
+
+	/**
+	 * Gets the best move of the last completed depth.
+	 *
+	 * @return int Encoded move, {@link Moves#NONE} if no depth was completed
+	 */
+	int getBestMove() {
+		return principalVariation.length > 0 ? principalVariation[0] : Moves.NONE;
+	}
+
+	/**
+	 * Gets the reply of the opponent expected after the best move, the second
+	 * move of the principal variation.
+	 *
+	 * @return int Encoded move, {@link Moves#NONE} if there is none
+	 */
+	int getPonderMove() {
+		return principalVariation.length > 1 ? principalVariation[1] : Moves.NONE;
+	}
+
+	/**
+	 * Makes this search ponder: the expected reply of the opponent is made on
+	 * the position searched, which is then no longer the one of the game. The
+	 * opening book is not used.
+	 *
+	 * @param move int Expected reply of the opponent
+	 * @return boolean Whether the reply is legal and the search can ponder
+	 */
+	boolean ponder(int move) {
+		int[] moves = moveBuffers[0];
+		int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		for (int i = 0; i < count; i++) {
+			if (moves[i] == move) {
+				position.makeMove(move);
+				pondering = true;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the share of beta cutoffs that happened on the first move searched,
+	 * which measures the quality of the move ordering.
+	 *
+	 * @return double Rate between 0 and 1
+	 */
+	public double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * Gets the statistics of the search, see {@link SearchStatistics}.
+	 *
+	 * @return {@link SearchStatistics} Statistics so far
+	 */
+	public SearchStatistics getStatistics() {
+		long elapsed = startTime == 0 ? 0 : elapsedTime > 0 ? elapsedTime : System.nanoTime() - startTime;
+		return new SearchStatistics(this, elapsed, Arrays.copyOf(iterationTimes, completedDepth));
+	}
+
+	/**
+	 * Runs the search.
+	 *
+	 * @return {@link Move} Best move, null if the side to move has no legal moves
+	 */
+	public Move run() {
+		int bestMove = search();
+		return bestMove == Moves.NONE ? null : board.toMove(bestMove);
+	}
+
+	/**
+	 * Runs the search, without converting the best move to a {@link Move} of the
+	 * board of the game, which a pondering search does not stand on.
+	 *
+	 * @return int Best move, {@link Moves#NONE} if the side to move has no legal
+	 *         moves
+	 */
+	int search() {
+		startTime = System.nanoTime();
+		deadline = limits.getMaxTime() > 0 ? startTime + limits.getMaxTime() * 1_000_000 : Long.MAX_VALUE;
+
+		int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, position.getSideToMove(), rootMoves);
+		if (!pondering) {
+			count = keepOpeningMoves(rootMoves, count);
+		}
+		if (count == 0) {
+			elapsedTime = System.nanoTime() - startTime;
+			return Moves.NONE;
+		}
+
+		long rootEntry = probe(position.getKey());
+		if (rootEntry != TranspositionTable.MISS) {
+			moveToFront(rootMoves, count, TranspositionTable.move(rootEntry));
+		}
+
+		int bestMove = rootMoves[0];
+		for (int depth = Math.min(firstDepth, limits.getDepth()); depth <= limits.getDepth(); depth++) {
+			long iterationStart = System.nanoTime();
+			int iterationBestMove = searchAspiration(rootMoves, count, depth);
+			if (stopped) {
+				break;
+			}
+			iterationTimes[depth - 1] = System.nanoTime() - iterationStart;
+			bestMove = iterationBestMove;
+			score = iterationScore;
+			completedDepth = depth;
+			principalVariation = pvLength[0] > 0 ? Arrays.copyOf(pvTable[0], pvLength[0]) : new int[] { bestMove };
+			if (limits.getEvalNoise() == 0) {
+				// A noisy score would mislead the searches of other games sharing the table
+				table.store(position.getKey(), bestMove, score, depth, TranspositionTable.EXACT);
+			}
+			// The best move is searched first at the next depth
+			moveToFront(rootMoves, count, bestMove);
+			if (Math.abs(score) >= MATE) {
+				break;
+			}
+		}
+		elapsedTime = System.nanoTime() - startTime;
+		return bestMove;
+	}
+
+	/**
+	 * Searches a depth within an aspiration window around the score of the
+	 * previous depth. When the score falls outside the window, the depth is
+	 * searched again with the window widened on that side, and with the full
+	 * window once it is wider than a queen.
+	 *
+	 * @param moves int[] Root moves
+	 * @param count int Number of root moves
+	 * @param depth int Depth to search
+	 * @return int Best move found, meaningless if the search was stopped
+	 */
+	private int searchAspiration(int[] moves, int count, int depth) {
+		int delta = ASPIRATION_WINDOW;
+		int alpha = -INFINITY;
+		int beta = INFINITY;
+		if (depth >= ASPIRATION_DEPTH && completedDepth > 0 && Math.abs(score) < MATE) {
+			alpha = score - delta;
+			beta = score + delta;
+		}
+		while (true) {
+			int bestMove = searchRoot(moves, count, depth, alpha, beta);
+			if (stopped || (iterationScore > alpha && iterationScore < beta)) {
+				return bestMove;
+			}
+			aspirationResearches++;
+			delta *= 2;
+			if (iterationScore <= alpha) {
+				alpha = Math.max(iterationScore - delta, -INFINITY);
+			} else {
+				beta = Math.min(iterationScore + delta, INFINITY);
+				// The move that failed high is searched first
+				moveToFront(moves, count, bestMove);
+			}
+			if (delta > Queen.VALUE) {
+				alpha = -INFINITY;
+				beta = INFINITY;
+			}
+		}
+	}
+
+	/**
+	 * Searches all the root moves to a given depth: the first one with the whole
+	 * window, the others with a null window and again with the whole window
+	 * only if they turn out to be better. The window of each move is shifted by
+	 * its noise, which is then added to its value.
+	 *
+	 * @param moves int[] Root moves
+	 * @param count int Number of root moves
+	 * @param depth int Depth to search
+	 * @param alpha int Lower bound of the window
+	 * @param beta  int Upper bound of the window
+	 * @return int Best move found, meaningless if the search was stopped
+	 */
+	private int searchRoot(int[] moves, int count, int depth, int alpha, int beta) {
+		pvLength[0] = 0;
+		int bestValue = -INFINITY;
+		int bestMove = moves[0];
+		for (int i = 0; i < count; i++) {
+			int noise = rootNoise(moves[i]);
+			position.makeMove(moves[i]);
+			int value = searchChild(i == 0, depth - 1, 1, alpha - noise, beta - noise) + noise;
+			position.unmakeMove(moves[i]);
+			if (stopped) {
+				break;
+			}
+			if (value > bestValue) {
+				bestValue = value;
+				bestMove = moves[i];
+			}
+			if (value > alpha) {
+				alpha = value;
+				updatePrincipalVariation(0, moves[i]);
+				if (alpha >= beta) {
+					break;
+				}
+			}
+		}
+		iterationScore = bestValue;
+		return bestMove;
+	}
+
+	/**
+	 * Searches the position after a move, from the point of view of the side that
+	 * made it. The first move of a node is searched with the whole window; the
+	 * others are expected to be worse and are only proved so with a null window,
+	 * and searched again with the whole window if they are not.
+	 *
+	 * @param first boolean Whether it is the first move of the node
+	 * @param depth int Depth of the child
+	 * @param ply   int Distance of the child from the root
+	 * @param alpha int Lower bound of the window of the node
+	 * @param beta  int Upper bound of the window of the node
+	 * @return int Value of the move
+	 */
+	private int searchChild(boolean first, int depth, int ply, int alpha, int beta) {
+		if (first) {
+			return -negamax(depth, ply, -beta, -alpha);
+		}
+		int value = -negamax(depth, ply, -alpha - 1, -alpha);
+		if (value > alpha && value < beta && !stopped) {
+			value = -negamax(depth, ply, -beta, -alpha);
+		}
+		return value;
+	}
+
+	/**
+	 * Gets the random offset of the score of a root move, the same at every
+	 * depth of the search.
+	 *
+	 * @param move int Root move
+	 * @return int Offset between -evalNoise and evalNoise of the limits
+	 */
+	private int rootNoise(int move) {
+		int noise = limits.getEvalNoise();
+		if (noise <= 0) {
+			return 0;
+		}
+		long hash = (noiseSeed + move) * 0x9E3779B97F4A7C15L;
+		hash = (hash ^ (hash >>> 31)) * 0xBF58476D1CE4E5B9L;
+		return (int) Math.floorMod(hash ^ (hash >>> 29), 2L * noise + 1) - noise;
+	}
+
+	private void updatePrincipalVariation(int ply, int move) {
+		pvTable[ply][ply] = move;
+		int length = Math.max(pvLength[ply + 1], ply + 1);
+		System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - ply - 1);
+		pvLength[ply] = length;
+	}
+
+	/**
+	 * Negamax algorithm recursive method, with alpha-beta pruning and a null
+	 * window for all the moves but the first (principal variation search). Every
+	 * ply is searched for the side to move and scored from its own point of view,
+	 * so a score is negated when it is passed back to the previous ply.
+	 *
+	 * @param depth int Depth at which to search in the recursive tree
+	 * @param ply   int Distance from the root
+	 * @param alpha int Score the side to move is already assured of
+	 * @param beta  int Score the opponent is already assured of, from the point
+	 *              of view of the side to move
+	 * @return int Best value for the side to move, meaningless if the search was
+	 *         stopped
+	 */
+	private int negamax(int depth, int ply, int alpha, int beta) {
+		pvLength[ply] = ply;
+		if (depth == 0) {
+			quiescenceNodeLimit = nodes + QUIESCENCE_MAX_NODES;
+			return quiescence(ply, alpha, beta);
+		}
+		if (checkLimits()) {
+			return 0;
+		}
+		int colour = position.getSideToMove();
+
+		long key = position.getKey();
+		long entry = probe(key);
+		int tableMove = Moves.NONE;
+		if (entry != TranspositionTable.MISS) {
+			tableMove = TranspositionTable.move(entry);
+			if (TranspositionTable.depth(entry) >= depth) {
+				int tableScore = fromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT
+						|| (bound == TranspositionTable.LOWER && tableScore >= beta)
+						|| (bound == TranspositionTable.UPPER && tableScore <= alpha)) {
+					return tableScore;
+				}
+			}
+		}
+
+		// Selective search, only in nodes expected to fail high or low, and never in check
+		boolean inCheck = position.isInCheck(colour);
+		boolean selective = beta - alpha == 1 && !inCheck && Math.abs(beta) < MATE;
+		int staticEval = selective ? GameAI.evaluateBoard(position, colour) : 0;
+		if (selective && limits.isFutility() && depth <= FUTILITY_DEPTH
+				&& staticEval - FUTILITY_MARGIN * depth >= beta) {
+			// Reverse futility: so far above beta that no move of the opponent is going to bring it back
+			reverseFutilityPrunes++;
+			return staticEval;
+		}
+		if (selective && limits.isNullMove() && depth >= NULL_MOVE_DEPTH && staticEval >= beta
+				&& !nullMoveMade[ply - 1] && hasPiecesOtherThanPawns(colour)) {
+			int value = searchNullMove(depth, ply, beta);
+			if (stopped) {
+				return 0;
+			}
+			if (value >= beta) {
+				nullMoveCutoffs++;
+				return value >= MATE ? beta : value;
+			}
+		}
+		boolean futile = selective && limits.isFutility() && depth <= FUTILITY_DEPTH
+				&& staticEval + FUTILITY_MARGIN * depth <= alpha;
+
+		// Moves are generated stage by stage, only until one of them causes a cutoff
+		MovePicker picker = pickers[ply];
+		picker.init(position, tableMove, ply);
+
+		int originalAlpha = alpha;
+		int bestValue = -INFINITY;
+		int bestMove = Moves.NONE;
+		int legalMoves = 0;
+		for (int move = picker.next(); move != Moves.NONE; move = picker.next()) {
+			int i = legalMoves++;
+			boolean quiet = !Moves.isCapture(move) && !Moves.isPromotion(move);
+			position.makeMove(move);
+			boolean givesCheck = position.isInCheck(position.getSideToMove());
+			if (futile && i > 0 && quiet && !givesCheck) {
+				// Futility: a quiet move is not going to raise a static evaluation so far below alpha
+				position.unmakeMove(move);
+				futilityPrunes++;
+				continue;
+			}
+			int value;
+			int reduction = selective && quiet && !givesCheck ? lateMoveReduction(move, colour, depth, ply, i) : 0;
+			if (reduction > 0) {
+				lateMoveReductions++;
+				value = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+				if (value > alpha && !stopped) {
+					value = searchChild(false, depth - 1, ply + 1, alpha, beta);
+				}
+			} else {
+				value = searchChild(i == 0, depth - 1, ply + 1, alpha, beta);
+			}
+			position.unmakeMove(move);
+			if (stopped) {
+				return 0;
+			}
+			if (value > bestValue) {
+				bestValue = value;
+				bestMove = move;
+			}
+			if (value > alpha) {
+				alpha = value;
+				updatePrincipalVariation(ply, move);
+			}
+			if (alpha >= beta) {
+				cutoffs++;
+				if (i == 0) {
+					firstMoveCutoffs++;
+				}
+				ordering.onCutoff(move, colour, depth, ply);
+				break;
+			}
+		}
+		if (legalMoves == 0) {
+			return inCheck ? mated(ply) : 0;
+		}
+
+		int bound = bestValue <= originalAlpha ? TranspositionTable.UPPER
+				: bestValue >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+		table.store(key, bound == TranspositionTable.UPPER ? Moves.NONE : bestMove, toTable(bestValue, ply), depth,
+				bound);
+		return bestValue;
+	}
+
+	/**
+	 * Searches the position with the turn passed to the opponent, to a reduced
+	 * depth and with a null window at beta. If the side to move is still above
+	 * beta without moving, a real move is expected to be too, and the node is
+	 * cut. The opponent may not pass back.
+	 *
+	 * @param depth int Depth of the node
+	 * @param ply   int Distance of the node from the root
+	 * @param beta  int Upper bound of the window of the node
+	 * @return int Value of the position after the null move
+	 */
+	private int searchNullMove(int depth, int ply, int beta) {
+		int reduction = NULL_MOVE_REDUCTION + depth / 6;
+		position.makeNullMove();
+		nullMoveMade[ply] = true;
+		int value = -negamax(Math.max(0, depth - 1 - reduction), ply + 1, -beta, -beta + 1);
+		nullMoveMade[ply] = false;
+		position.unmakeNullMove();
+		return value;
+	}
+
+	/**
+	 * Gets the plies by which a quiet move is searched shallower. Moves sorted
+	 * late are unlikely to be best, so they are reduced by one ply, and by two
+	 * when they come very late in a deep node, but one ply less when they already
+	 * caused cutoffs elsewhere (history). Killer moves are not reduced.
+	 *
+	 * @param move   int Quiet move that does not give check
+	 * @param colour int Side that plays it
+	 * @param depth  int Depth of the node
+	 * @param ply    int Distance of the node from the root
+	 * @param index  int Position of the move in the sorted list
+	 * @return int Reduction, 0 if the move is searched to the full depth
+	 */
+	private int lateMoveReduction(int move, int colour, int depth, int ply, int index) {
+		if (!limits.isLateMoveReductions() || depth < LMR_DEPTH || index < LMR_MOVES || ordering.isKiller(move, ply)) {
+			return 0;
+		}
+		int reduction = 1;
+		if (depth >= 6 && index >= 3 * LMR_MOVES) {
+			reduction++;
+		}
+		if (ordering.getHistory(move, colour) > 0) {
+			reduction--;
+		}
+		return Math.min(reduction, depth - 2);
+	}
+
+	/**
+	 * Checks if a side has pieces other than pawns and the king. Without them, in
+	 * pawn endings, having to move is often a disadvantage (zugzwang), so passing
+	 * the turn does not prove anything.
+	 */
+	private boolean hasPiecesOtherThanPawns(int colour) {
+		return (position.getOccupied(colour) & ~position.getPieces(colour, Bitboards.PAWN)
+				& ~position.getPieces(colour, Bitboards.KING)) != 0L;
+	}
+
+	/**
+	 * Quiescence search: only captures and promotions are searched, and the side
+	 * to move may also stand pat, that is, keep the static evaluation instead of
+	 * capturing. A side in check has to answer it, so all its moves are searched.
+	 * Captures that cannot raise alpha even with a margin (delta pruning) and
+	 * captures that lose material in the exchange are skipped, and the search
+	 * stands pat once its node budget is spent.
+	 *
+	 * @param ply   int Distance from the root
+	 * @param alpha int Score the side to move is already assured of
+	 * @param beta  int Score the opponent is already assured of
+	 * @return int Best value for the side to move, meaningless if the search was
+	 *         stopped
+	 */
+	private int quiescence(int ply, int alpha, int beta) {
+		pvLength[ply] = ply;
+		if (checkLimits()) {
+			return 0;
+		}
+		quiescenceNodes++;
+		selectiveDepth = Math.max(selectiveDepth, ply);
+		int colour = position.getSideToMove();
+		boolean inCheck = position.isInCheck(colour);
+		int standPat = GameAI.evaluateBoard(position, colour);
+		if (ply >= MAX_PLY || (!inCheck && (standPat >= beta || nodes >= quiescenceNodeLimit))) {
+			return standPat;
+		}
+
+		int[] moves = moveBuffers[ply];
+		int count = inCheck ? MoveGenerator.generateLegal(position, colour, moves)
+				: MoveGenerator.generateLegalCaptures(position, colour, moves);
+		if (inCheck && count == 0) {
+			return mated(ply);
+		}
+		int bestValue = inCheck ? -INFINITY : standPat;
+		alpha = Math.max(alpha, bestValue);
+		ordering.sort(position, moves, count, Moves.NONE, ply);
+
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			if (!inCheck && !Moves.isPromotion(move) && ((limits.isDeltaPruning()
+					&& standPat + GameAI.PIECE_VALUES[capturedType(move)] + DELTA_MARGIN <= alpha)
+					|| ordering.isLosingCapture(position, move))) {
+				continue;
+			}
+			position.makeMove(move);
+			int value = -quiescence(ply + 1, -beta, -alpha);
+			position.unmakeMove(move);
+			if (stopped) {
+				return 0;
+			}
+			if (value > bestValue) {
+				bestValue = value;
+			}
+			alpha = Math.max(alpha, value);
+			if (alpha >= beta) {
+				break;
+			}
+		}
+		return bestValue;
+	}
+
+	/**
+	 * Gets the score of the side to move when it is checkmated.
+	 *
+	 * @param ply int Distance from the root
+	 * @return int Score, closer to zero for mates further from the root
+	 */
+	private static int mated(int ply) {
+		return -MATE - (MAX_PLY - ply);
+	}
+
+	/**
+	 * Converts a score to the one stored in the transposition table, where mates
+	 * are counted from the position of the entry instead of the root, so that the
+	 * entry is valid whatever the ply the position is reached at.
+	 *
+	 * @param score int Score from the root
+	 * @param ply   int Distance of the position from the root
+	 * @return int Score to store
+	 */
+	private static int toTable(int score, int ply) {
+		return score >= MATE ? score + ply : score <= -MATE ? score - ply : score;
+	}
+
+	/**
+	 * Converts a score of the transposition table back to a score from the root.
+	 *
+	 * @param score int Score stored
+	 * @param ply   int Distance of the position from the root
+	 * @return int Score from the root
+	 */
+	private static int fromTable(int score, int ply) {
+		return score >= MATE ? score - ply : score <= -MATE ? score + ply : score;
+	}
+
+	private long probe(long key) {
+		tableProbes++;
+		long entry = table.probe(key);
+		if (entry != TranspositionTable.MISS) {
+			tableHits++;
+		}
+		return entry;
+	}
+
+	private int capturedType(int move) {
+		return Moves.isEnPassant(move) ? Bitboards.PAWN : Bitboards.typeOf(position.getPiece(Moves.to(move)));
+	}
+
+	/**
+	 * Counts a node and stops the search if a node or time limit is reached. The
+	 * clock is only read every few nodes.
+	 *
+	 * @return true if the search has to stop, false otherwise
+	 */
+	private boolean checkLimits() {
+		nodes++;
+		if (limits.getMaxNodes() > 0 && nodes >= limits.getMaxNodes()) {
+			stopped = true;
+		} else if (nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+			stopped = true;
+		}
+		return stopped;
+	}
+
+	/**
+	 * Keeps only the root moves of the opening book, if it has any for the moves
+	 * played so far.
+	 *
+	 * @param moves int[] Root moves
+	 * @param count int Number of root moves
+	 * @return int Number of root moves kept
+	 */
+	private int keepOpeningMoves(int[] moves, int count) {
+		if (openingMoves == null) {
+			return count;
+		}
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			for (int move : openingMoves) {
+				if (moves[i] == move) {
+					moves[kept++] = moves[i];
+					break;
+				}
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * Gets the moves of the opening book for the moves played so far.
+	 *
+	 * @param game {@link Game} Current game
+	 * @return int[] Encoded moves, null if the book has none
+	 */
+	private int[] getOpeningMoves(Game game) {
+		// Moves are only converted to Move objects here, to look them up in the opening book
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		List<Move> possibleMovements = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			possibleMovements.add(board.toMove(moves[i]));
+		}
+		List<Move> openingMovements = OpeningBook.getNext(game.getMovesPlayed(), possibleMovements);
+		if (openingMovements == null) {
+			return null;
+		}
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			if (openingMovements.contains(possibleMovements.get(i))) {
+				moves[kept++] = moves[i];
+			}
+		}
+		return Arrays.copyOf(moves, kept);
+	}
+
+	private static void moveToFront(int[] moves, int count, int move) {
+		for (int i = 0; i < count; i++) {
+			if (moves[i] == move) {
+				System.arraycopy(moves, 0, moves, 1, i);
+				moves[0] = move;
+				return;
+			}
+		}
+	}
+
+}
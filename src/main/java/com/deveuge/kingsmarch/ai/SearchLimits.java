@@ -0,0 +1,67 @@
+package com.deveuge.kingsmarch.ai;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Limits of a search. The search deepens one ply at a time until any of them
+ * is reached and then plays the best move of the last completed depth. A limit
+ * of 0 means no limit, except for the depth, which is always capped by
+ * {@link #MAX_DEPTH}. The number of threads of the search, the pruning
+ * techniques it may use and the noise that weakens it on purpose are given here
+ * too.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class SearchLimits {
+
+	public static final int MAX_DEPTH = 64;
+
+	/** Maximum depth in plies */
+	@Builder.Default
+	private final int maxDepth = MAX_DEPTH;
+	/** Maximum time in milliseconds */
+	@Builder.Default
+	private final long maxTime = 0;
+	/** Maximum number of nodes */
+	@Builder.Default
+	private final long maxNodes = 0;
+	/** Threads searching together, see {@link ParallelSearch} */
+	@Builder.Default
+	private final int threads = 1;
+	/** Whether the search may prune with a null move */
+	@Builder.Default
+	private final boolean nullMove = true;
+	/** Whether late moves may be searched to a reduced depth */
+	@Builder.Default
+	private final boolean lateMoveReductions = true;
+	/** Whether nodes and moves close to the leaves may be pruned by their static evaluation */
+	@Builder.Default
+	private final boolean futility = true;
+	/** Whether the quiescence search may skip captures that cannot raise alpha */
+	@Builder.Default
+	private final boolean deltaPruning = true;
+	/** Largest random offset added to the score of each root move, 0 to play the best move found */
+	@Builder.Default
+	private final int evalNoise = 0;
+
+	/**
+	 * Gets limits that only bound the depth.
+	 *
+	 * @param depth int Maximum depth in plies
+	 * @return {@link SearchLimits}
+	 */
+	public static SearchLimits depth(int depth) {
+		return SearchLimits.builder().maxDepth(depth).build();
+	}
+
+	/**
+	 * Gets the depth the search can actually reach.
+	 *
+	 * @return int Maximum depth, between 1 and {@link #MAX_DEPTH}
+	 */
+	public int getDepth() {
+		return Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.deveuge.kingsmarch.ai;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Metrics of all the searches of the computer's moves, published to a
+ * Micrometer registry: counters of the work done, and histograms of the time,
+ * the speed and the depth of every search. They are updated once per search
+ * from its {@link SearchStatistics}, never while searching. Whether pondering
+ * guessed the player's reply is counted too.
+ */
+public class SearchMetrics {
+
+	private static final String PREFIX = "kingsmarch.search";
+
+	private final MeterRegistry registry;
+	private final Timer time;
+	private final DistributionSummary nodesPerSecond;
+	private final DistributionSummary completedDepth;
+	private final DistributionSummary selectiveDepth;
+	private final Counter nodes;
+	private final Counter quiescenceNodes;
+	private final Counter tableProbes;
+	private final Counter tableHits;
+	private final Counter cutoffs;
+	private final Counter firstMoveCutoffs;
+	private final Counter aspirationResearches;
+	private final Counter nullMoveCutoffs;
+	private final Counter reverseFutilityPrunes;
+	private final Counter futilityPrunes;
+	private final Counter lateMoveReductions;
+	private final Counter ponderHits;
+	private final Counter ponderMisses;
+
+	/**
+	 * Registers the metrics.
+	 *
+	 * @param registry {@link MeterRegistry} Registry the metrics are published to
+	 */
+	public SearchMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		this.time = Timer.builder(PREFIX + ".time").description("Time of a search")
+				.publishPercentileHistogram().register(registry);
+		this.nodesPerSecond = DistributionSummary.builder(PREFIX + ".nps").description("Nodes searched per second")
+				.baseUnit("nodes").publishPercentileHistogram().register(registry);
+		this.completedDepth = DistributionSummary.builder(PREFIX + ".depth").description("Depth completed by a search")
+				.register(registry);
+		this.selectiveDepth = DistributionSummary.builder(PREFIX + ".seldepth")
+				.description("Deepest ply reached by a search, quiescence search included").register(registry);
+		this.nodes = Counter.builder(PREFIX + ".nodes").description("Nodes searched").baseUnit("nodes")
+				.register(registry);
+		this.quiescenceNodes = Counter.builder(PREFIX + ".quiescence.nodes")
+				.description("Nodes searched by the quiescence search").baseUnit("nodes").register(registry);
+		this.tableProbes = Counter.builder(PREFIX + ".table.probes")
+				.description("Lookups in the transposition table").register(registry);
+		this.tableHits = Counter.builder(PREFIX + ".table.hits")
+				.description("Lookups in the transposition table that found their position").register(registry);
+		this.cutoffs = Counter.builder(PREFIX + ".cutoffs").description("Beta cutoffs").register(registry);
+		this.firstMoveCutoffs = Counter.builder(PREFIX + ".cutoffs.first-move")
+				.description("Beta cutoffs on the first move searched").register(registry);
+		this.aspirationResearches = Counter.builder(PREFIX + ".aspiration.researches")
+				.description("Depths searched again with a wider window").register(registry);
+		this.nullMoveCutoffs = Counter.builder(PREFIX + ".pruned").tag("technique", "null-move")
+				.description("Nodes cut by a null move").register(registry);
+		this.reverseFutilityPrunes = Counter.builder(PREFIX + ".pruned").tag("technique", "reverse-futility")
+				.description("Nodes cut by reverse futility pruning").register(registry);
+		this.futilityPrunes = Counter.builder(PREFIX + ".pruned").tag("technique", "futility")
+				.description("Moves skipped by futility pruning").register(registry);
+		this.lateMoveReductions = Counter.builder(PREFIX + ".reductions")
+				.description("Moves searched to a reduced depth by late move reductions").register(registry);
+		this.ponderHits = Counter.builder("kingsmarch.ponder").tag("result", "hit")
+				.description("Moves played straight from pondering").register(registry);
+		this.ponderMisses = Counter.builder("kingsmarch.ponder").tag("result", "miss")
+				.description("Pondering searches whose move could not be played").register(registry);
+	}
+
+	/**
+	 * Records the end of pondering, when the player has moved.
+	 *
+	 * @param hit boolean Whether the move found by pondering was played
+	 */
+	public void recordPonder(boolean hit) {
+		(hit ? ponderHits : ponderMisses).increment();
+	}
+
+	/**
+	 * Records a finished search.
+	 *
+	 * @param statistics {@link SearchStatistics} Statistics of the search
+	 */
+	public void record(SearchStatistics statistics) {
+		time.record(statistics.getElapsedTime(), TimeUnit.NANOSECONDS);
+		nodesPerSecond.record(statistics.getNodesPerSecond());
+		completedDepth.record(statistics.getCompletedDepth());
+		selectiveDepth.record(statistics.getSelectiveDepth());
+		nodes.increment(statistics.getNodes());
+		quiescenceNodes.increment(statistics.getQuiescenceNodes());
+		tableProbes.increment(statistics.getTableProbes());
+		tableHits.increment(statistics.getTableHits());
+		cutoffs.increment(statistics.getCutoffs());
+		firstMoveCutoffs.increment(statistics.getFirstMoveCutoffs());
+		aspirationResearches.increment(statistics.getAspirationResearches());
+		nullMoveCutoffs.increment(statistics.getNullMoveCutoffs());
+		reverseFutilityPrunes.increment(statistics.getReverseFutilityPrunes());
+		futilityPrunes.increment(statistics.getFutilityPrunes());
+		lateMoveReductions.increment(statistics.getLateMoveReductions());
+
+		long[] iterationTimes = statistics.getIterationTimes();
+		for (int depth = 1; depth <= iterationTimes.length; depth++) {
+			if (iterationTimes[depth - 1] > 0) {
+				Timer.builder(PREFIX + ".iteration.time").description("Time of a depth of the iterative deepening")
+						.tag("depth", String.valueOf(depth)).register(registry)
+						.record(iterationTimes[depth - 1], TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.deveuge.kingsmarch.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+
+/**
+ * Statistics of a search: the work done, the depth reached and how well the
+ * transposition table and the move ordering worked. Every thread of a search
+ * counts in plain fields of its own {@link Search}, without synchronization, and
+ * the counters are only gathered here, and merged for a {@link ParallelSearch},
+ * when asked for. Counting is then cheap enough to be always on.
+ */
+@Getter
+public class SearchStatistics {
+
+	/** Nodes searched, quiescence nodes included */
+	private long nodes;
+	private long quiescenceNodes;
+	private int completedDepth;
+	/** Deepest ply reached, quiescence search included */
+	private int selectiveDepth;
+	private long tableProbes;
+	private long tableHits;
+	/** Beta cutoffs, in total and on the first move searched */
+	private long cutoffs;
+	private long firstMoveCutoffs;
+	/** Depths searched again with a wider window, see {@link Search} */
+	private long aspirationResearches;
+	/** Nodes cut by each selective search technique, and moves searched to a reduced depth */
+	private long nullMoveCutoffs;
+	private long reverseFutilityPrunes;
+	private long futilityPrunes;
+	private long lateMoveReductions;
+	/** Threads that took part in the search */
+	private int threads = 1;
+	/** Time of the whole search in nanoseconds */
+	private final long elapsedTime;
+	/** Time of each depth of the main thread in nanoseconds, the first one being depth 1 */
+	private final long[] iterationTimes;
+
+	/**
+	 * Gathers the statistics of one thread.
+	 *
+	 * @param search         {@link Search} Search of the thread
+	 * @param elapsedTime    long Time of the search in nanoseconds
+	 * @param iterationTimes long[] Time of each completed depth in nanoseconds
+	 */
+	SearchStatistics(Search search, long elapsedTime, long[] iterationTimes) {
+		this.nodes = search.getNodes();
+		this.quiescenceNodes = search.getQuiescenceNodes();
+		this.completedDepth = search.getCompletedDepth();
+		this.selectiveDepth = search.getSelectiveDepth();
+		this.tableProbes = search.getTableProbes();
+		this.tableHits = search.getTableHits();
+		this.cutoffs = search.getCutoffs();
+		this.firstMoveCutoffs = search.getFirstMoveCutoffs();
+		this.aspirationResearches = search.getAspirationResearches();
+		this.nullMoveCutoffs = search.getNullMoveCutoffs();
+		this.reverseFutilityPrunes = search.getReverseFutilityPrunes();
+		this.futilityPrunes = search.getFutilityPrunes();
+		this.lateMoveReductions = search.getLateMoveReductions();
+		this.elapsedTime = elapsedTime;
+		this.iterationTimes = iterationTimes;
+	}
+
+	/**
+	 * Adds the counters of a helper thread of the same search. Times are those of
+	 * the main thread.
+	 *
+	 * @param helper {@link SearchStatistics} Statistics of the helper
+	 */
+	void merge(SearchStatistics helper) {
+		nodes += helper.nodes;
+		quiescenceNodes += helper.quiescenceNodes;
+		completedDepth = Math.max(completedDepth, helper.completedDepth);
+		selectiveDepth = Math.max(selectiveDepth, helper.selectiveDepth);
+		tableProbes += helper.tableProbes;
+		tableHits += helper.tableHits;
+		cutoffs += helper.cutoffs;
+		firstMoveCutoffs += helper.firstMoveCutoffs;
+		aspirationResearches += helper.aspirationResearches;
+		nullMoveCutoffs += helper.nullMoveCutoffs;
+		reverseFutilityPrunes += helper.reverseFutilityPrunes;
+		futilityPrunes += helper.futilityPrunes;
+		lateMoveReductions += helper.lateMoveReductions;
+		threads += helper.threads;
+	}
+
+	/**
+	 * Gets the speed of the search.
+	 *
+	 * @return long Nodes per second
+	 */
+	public long getNodesPerSecond() {
+		return elapsedTime == 0 ? 0 : nodes * TimeUnit.SECONDS.toNanos(1) / elapsedTime;
+	}
+
+	/**
+	 * Gets the share of the lookups in the transposition table that found their
+	 * position.
+	 *
+	 * @return double Hit rate, between 0 and 1
+	 */
+	public double getTableHitRate() {
+		return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+	}
+
+	/**
+	 * Gets the share of beta cutoffs that happened on the first move searched.
+	 *
+	 * @return double Rate between 0 and 1
+	 */
+	public double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * Gets the time of the whole search.
+	 *
+	 * @return long Time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(elapsedTime);
+	}
+
+	/**
+	 * Gets the time of each completed depth of the main thread.
+	 *
+	 * @return {@link List}<{@link Double}> Times in milliseconds, the first one
+	 *         being depth 1
+	 */
+	public List<Double> getIterationMillis() {
+		List<Double> times = new ArrayList<>(iterationTimes.length);
+		for (long time : iterationTimes) {
+			times.add(time / 1_000_000.0);
+		}
+		return times;
+	}
+
+}
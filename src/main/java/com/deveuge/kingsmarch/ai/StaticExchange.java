@@ -0,0 +1,96 @@
+package com.deveuge.kingsmarch.ai;
+
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+/**
+ * Static exchange evaluation (SEE): the material won or lost by a capture once
+ * every piece attacking the square has joined the exchange, without searching
+ * it. Both sides capture with their least valuable piece first and may stop
+ * capturing when going on would lose material.
+ * <p>
+ * The attackers are looked up in the attack tables again after every capture
+ * with the pieces already used removed from the occupancy, so sliders standing
+ * behind another attacker (x-rays) take part in the exchange too.
+ * <p>
+ * An instance keeps the buffer of the exchange, so it is not shared between
+ * threads.
+ */
+public class StaticExchange {
+
+	/** Upper bound of the number of captures of an exchange, one per piece on the board */
+	private static final int MAX_CAPTURES = 34;
+
+	private final int[] gain = new int[MAX_CAPTURES];
+
+	/**
+	 * Evaluates the exchange started by a move.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param move     int Encoded move, usually a capture
+	 * @return int Material won by the side moving, negative if it loses material
+	 */
+	public int evaluate(BitboardPosition position, int move) {
+		int from = Moves.from(move);
+		int to = Moves.to(move);
+		int side = Bitboards.colourOf(position.getPiece(from));
+		long occupied = position.getOccupied() ^ Bitboards.bit(from);
+
+		int attackerType = Bitboards.typeOf(position.getPiece(from));
+		if (Moves.isEnPassant(move)) {
+			occupied ^= Bitboards.bit(side == Bitboards.WHITE ? to - 8 : to + 8);
+			gain[0] = GameAI.PIECE_VALUES[Bitboards.PAWN];
+		} else {
+			int captured = position.getPiece(to);
+			gain[0] = captured == Bitboards.NO_PIECE ? 0 : GameAI.PIECE_VALUES[Bitboards.typeOf(captured)];
+		}
+		if (Moves.isPromotion(move)) {
+			attackerType = Moves.promotionType(move);
+			gain[0] += GameAI.PIECE_VALUES[attackerType] - GameAI.PIECE_VALUES[Bitboards.PAWN];
+		}
+
+		int depth = 0;
+		while (true) {
+			side = Bitboards.opposite(side);
+			depth++;
+			// Score if the piece that has just captured is taken in turn
+			gain[depth] = GameAI.PIECE_VALUES[attackerType] - gain[depth - 1];
+			if (Math.max(-gain[depth - 1], gain[depth]) < 0) {
+				// Neither side would go on, whatever follows
+				break;
+			}
+			long attackers = attackers(position, to, occupied);
+			long ownAttackers = attackers & position.getOccupied(side);
+			if (ownAttackers == 0L) {
+				break;
+			}
+			int type = leastValuable(position, side, ownAttackers);
+			if (type == Bitboards.KING && (attackers & position.getOccupied(Bitboards.opposite(side))) != 0L) {
+				// The king cannot capture onto a defended square
+				break;
+			}
+			occupied ^= Bitboards.bit(Bitboards.first(ownAttackers & position.getPieces(side, type)));
+			attackerType = type;
+		}
+		while (--depth > 0) {
+			gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+		}
+		return gain[0];
+	}
+
+	private static long attackers(BitboardPosition position, int square, long occupied) {
+		return (position.getAttackers(square, Bitboards.WHITE, occupied)
+				| position.getAttackers(square, Bitboards.BLACK, occupied)) & occupied;
+	}
+
+	private static int leastValuable(BitboardPosition position, int colour, long attackers) {
+		for (int type = Bitboards.PAWN; type < Bitboards.KING; type++) {
+			if ((attackers & position.getPieces(colour, type)) != 0L) {
+				return type;
+			}
+		}
+		return Bitboards.KING;
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.deveuge.kingsmarch.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Transposition table: results of positions already searched, by Zobrist key,
+ * so that a position reached again (through another move order or at the next
+ * depth) is not searched from scratch.
+ * <p>
+ * Entries are two <code>long</code>s in a single array: the data (best move,
+ * depth, bound, age and score packed together) and the key XOR the data. There
+ * are no locks, so when several threads write the same entry at once its two
+ * halves may come from different writes; such an entry no longer verifies
+ * against the key and is taken as a miss.
+ * <p>
+ * An entry is replaced by a search of the same or a greater depth, or when it
+ * was written in an earlier generation (its age is not the current one). The
+ * table is shared by the searches of all the games, their helper threads and
+ * pondering, so none of them ages it: the generation is advanced by the owner
+ * of the table, once per move asked for.
+ * <p>
+ * Mate scores are stored as distances from the position of the entry, not from
+ * the root, see {@link Search}.
+ */
+public class TranspositionTable {
+
+	public static final int EXACT = 1;
+	/** The score is a lower bound, the search failed high */
+	public static final int LOWER = 2;
+	/** The score is an upper bound, the search failed low */
+	public static final int UPPER = 3;
+
+	/** Data returned by {@link #probe(long)} when the position is not in the table */
+	public static final long MISS = 0L;
+
+	private static final int ENTRY_SIZE = 2 * Long.BYTES;
+	private static final int AGE_MASK = 0x3F;
+	/** Number of entries sampled to estimate the fill rate */
+	private static final int FILL_SAMPLE = 1000;
+
+	private final long[] table;
+	private final int mask;
+	private final AtomicInteger generation = new AtomicInteger();
+
+	/**
+	 * Creates a table that takes up to the given memory, rounded down to a power
+	 * of two entries.
+	 *
+	 * @param sizeInMegabytes int Memory of the table in MB
+	 */
+	public TranspositionTable(int sizeInMegabytes) {
+		long bytes = Math.max(1, sizeInMegabytes) * 1024L * 1024L;
+		int entries = Integer.highestOneBit((int) Math.min(bytes / ENTRY_SIZE, 1 << 28));
+		this.table = new long[entries * 2];
+		this.mask = entries - 1;
+	}
+
+	/**
+	 * Starts a new generation, whose entries are preferred to those of previous
+	 * ones. It is called once per move searched for, not by every search.
+	 */
+	public void newSearch() {
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear() {
+		Arrays.fill(table, 0L);
+	}
+
+	/**
+	 * Looks a position up.
+	 *
+	 * @param key long Zobrist key of the position
+	 * @return long Data of the entry, see {@link #move(long)}, {@link #score(long)},
+	 *         {@link #depth(long)} and {@link #bound(long)}, or {@link #MISS}
+	 */
+	public long probe(long key) {
+		int index = index(key);
+		long data = table[index + 1];
+		if (data == MISS || (table[index] ^ data) != key) {
+			return MISS;
+		}
+		return data;
+	}
+
+	/**
+	 * Stores the result of searching a position.
+	 *
+	 * @param key   long Zobrist key of the position
+	 * @param move  int Best move found, {@link com.deveuge.kingsmarch.engine.bitboard.Moves#NONE} if none
+	 * @param score int Score of the position for the side to move, mates counted from the position
+	 * @param depth int Depth of the search
+	 * @param bound int {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		int index = index(key);
+		long stored = table[index + 1];
+		boolean samePosition = (table[index] ^ stored) == key;
+		int age = age();
+		if (stored != MISS && !samePosition && age(stored) == age && depth(stored) > depth) {
+			return;
+		}
+		if (samePosition && move == 0) {
+			// Keep the move of a previous search of the position for move ordering
+			move = move(stored);
+		}
+		long data = pack(move, score, depth, bound, age);
+		table[index] = key ^ data;
+		table[index + 1] = data;
+	}
+
+	/**
+	 * Publishes the fill rate and the capacity of the table, next to the metrics
+	 * of the searches.
+	 *
+	 * @param registry {@link MeterRegistry} Registry the metrics are published to
+	 * @return {@link TranspositionTable} This table
+	 */
+	public TranspositionTable bindTo(MeterRegistry registry) {
+		Gauge.builder("kingsmarch.search.table.fill", this, TranspositionTable::getFillRate)
+				.description("Share of the transposition table written since the last move asked for").register(registry);
+		Gauge.builder("kingsmarch.search.table.capacity", this, TranspositionTable::getCapacity)
+				.description("Entries of the transposition table").baseUnit("entries").register(registry);
+		return this;
+	}
+
+	/**
+	 * Estimates the share of entries written by the current search, sampling the
+	 * first entries of the table.
+	 *
+	 * @return double Fill rate, between 0 and 1
+	 */
+	public double getFillRate() {
+		int sample = Math.min(FILL_SAMPLE, mask + 1);
+		int age = age();
+		int filled = 0;
+		for (int i = 0; i < sample; i++) {
+			long data = table[i * 2 + 1];
+			if (data != MISS && age(data) == age) {
+				filled++;
+			}
+		}
+		return (double) filled / sample;
+	}
+
+	/**
+	 * Gets the number of entries of the table.
+	 *
+	 * @return int Capacity of the table
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	public static int move(long data) {
+		return (int) data & 0xFFFF;
+	}
+
+	public static int depth(long data) {
+		return (int) (data >>> 16) & 0xFF;
+	}
+
+	public static int bound(long data) {
+		return (int) (data >>> 24) & 0x3;
+	}
+
+	public static int score(long data) {
+		return (int) (data >> 32);
+	}
+
+	private int age() {
+		return generation.get() & AGE_MASK;
+	}
+
+	private static int age(long data) {
+		return (int) (data >>> 26) & AGE_MASK;
+	}
+
+	private static long pack(int move, int score, int depth, int bound, int age) {
+		return (move & 0xFFFFL)
+				| ((long) (depth & 0xFF) << 16)
+				| ((long) bound << 24)
+				| ((long) age << 26)
+				| ((long) score << 32);
+	}
+
+	private int index(long key) {
+		return ((int) (key ^ (key >>> 32)) & mask) << 1;
+	}
+
+}
@@ -1,13 +1,39 @@
 package com.deveuge.kingsmarch.config;
 
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.context.annotation.SessionScope;
 
+import com.deveuge.kingsmarch.ai.AutoPlayer;
+import com.deveuge.kingsmarch.ai.BestMoveCache;
+import com.deveuge.kingsmarch.ai.Difficulty;
+import com.deveuge.kingsmarch.ai.Ponderer;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.ai.SearchMetrics;
+import com.deveuge.kingsmarch.ai.TranspositionTable;
 import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.bitboard.Attacks;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 
 @Configuration
 public class EngineConfiguration {
+	
+	/**
+	 * Builds the attack tables once at startup instead of on the first move.
+	 */
+	@PostConstruct
+	public void initAttackTables() {
+		Attacks.init();
+	}
 
     @Bean(name = "singleplayerGame")
     @SessionScope
@@ -15,4 +41,126 @@ public class EngineConfiguration {
 	    return new Game();
 	}
     
+	/**
+	 * Limits of the AI search, which bound how long the player waits for the
+	 * computer's move.
+	 */
+	@Bean
+	SearchLimits searchLimits(@Value("${kingsmarch.ai.max-depth:64}") int maxDepth,
+			@Value("${kingsmarch.ai.max-time:2000}") long maxTime,
+			@Value("${kingsmarch.ai.max-nodes:0}") long maxNodes,
+			@Value("${kingsmarch.ai.threads:1}") int threads,
+			@Value("${kingsmarch.ai.max-threads:4}") int maxThreads,
+			@Value("${kingsmarch.ai.null-move:true}") boolean nullMove,
+			@Value("${kingsmarch.ai.late-move-reductions:true}") boolean lateMoveReductions,
+			@Value("${kingsmarch.ai.futility:true}") boolean futility,
+			@Value("${kingsmarch.ai.delta-pruning:true}") boolean deltaPruning) {
+		return SearchLimits.builder().maxDepth(maxDepth).maxTime(maxTime).maxNodes(maxNodes)
+				.threads(Math.min(threads, maxThreads))
+				.nullMove(nullMove).lateMoveReductions(lateMoveReductions).futility(futility)
+				.deltaPruning(deltaPruning).build();
+	}
+
+	/**
+	 * Pool of the helper threads of the parallel searches. Its size caps the
+	 * threads searching at once in the whole application, besides the threads of
+	 * the requests themselves. It has no queue: a helper that cannot start at once
+	 * is dropped, instead of waiting for the helpers of another search.
+	 */
+	@Bean(destroyMethod = "shutdownNow")
+	ThreadPoolExecutor searchHelpers(@Value("${kingsmarch.ai.max-threads:4}") int maxThreads) {
+		int helpers = Math.max(1, maxThreads - 1);
+		AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(helpers, helpers, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "search-helper-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Engine executor, which runs the searches of the computer's moves so that
+	 * the threads of the requests never wait for them.
+	 */
+	@Bean(destroyMethod = "shutdownNow")
+	ThreadPoolExecutor engineExecutor(@Value("${kingsmarch.ai.engine-threads:2}") int engineThreads) {
+		int threads = Math.max(1, engineThreads);
+		AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "engine-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Pool of the pondering threads, with the lowest priority and no queue: a
+	 * game that finds them all busy does not ponder.
+	 */
+	@Bean(destroyMethod = "shutdownNow")
+	ThreadPoolExecutor ponderExecutor(@Value("${kingsmarch.ai.ponder-threads:1}") int ponderThreads) {
+		int threads = Math.max(1, ponderThreads);
+		AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "ponder-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * Ponderer of the single-player games, turned off while the engine executor
+	 * is busy.
+	 */
+	@Bean
+	Ponderer ponderer(@Value("${kingsmarch.ai.ponder:true}") boolean ponder, TranspositionTable transpositionTable,
+			ThreadPoolExecutor ponderExecutor, ThreadPoolExecutor engineExecutor) {
+		return new Ponderer(ponder, transpositionTable, ponderExecutor, engineExecutor);
+	}
+
+	/**
+	 * Computer player of the session, whose search in progress is cancelled when
+	 * the session ends. It plays at the configured difficulty until the player
+	 * chooses another one.
+	 */
+	@Bean(destroyMethod = "cancel")
+	@SessionScope
+	AutoPlayer autoPlayer(TranspositionTable transpositionTable, ThreadPoolExecutor searchHelpers,
+			ThreadPoolExecutor engineExecutor, SearchMetrics searchMetrics, Ponderer ponderer,
+			BestMoveCache bestMoveCache, @Value("${kingsmarch.ai.difficulty:MEDIUM}") Difficulty difficulty) {
+		AutoPlayer autoPlayer = new AutoPlayer(transpositionTable, searchHelpers, engineExecutor, searchMetrics,
+				ponderer, bestMoveCache);
+		autoPlayer.setDifficulty(difficulty);
+		return autoPlayer;
+	}
+
+	/**
+	 * Metrics of the searches, published to the registry of the actuator.
+	 */
+	@Bean
+	SearchMetrics searchMetrics(MeterRegistry registry) {
+		return new SearchMetrics(registry);
+	}
+
+	/**
+	 * Best moves shared by the searches of every game, with the configured
+	 * maximum number of positions, and its metrics.
+	 */
+	@Bean
+	BestMoveCache bestMoveCache(@Value("${kingsmarch.ai.best-move-cache-size:100000}") long size,
+			MeterRegistry registry) {
+		return new BestMoveCache(size).bindTo(registry);
+	}
+
+	/**
+	 * Transposition table shared by the searches of every game, allocated once
+	 * with the configured size in MB, and its metrics.
+	 */
+	@Bean
+	TranspositionTable transpositionTable(@Value("${kingsmarch.ai.hash-size:16}") int hashSize,
+			MeterRegistry registry) {
+		return new TranspositionTable(hashSize).bindTo(registry);
+	}
+
 }
@@ -1,9 +1,13 @@
 package com.deveuge.kingsmarch.controller;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.aop.scope.ScopedObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,7 +16,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.deveuge.kingsmarch.ai.AutoPlayer;
+import com.deveuge.kingsmarch.ai.Difficulty;
 import com.deveuge.kingsmarch.ai.GameAI;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.ai.SearchStatistics;
 import com.deveuge.kingsmarch.engine.Board;
 import com.deveuge.kingsmarch.engine.Game;
 import com.deveuge.kingsmarch.engine.Move;
@@ -23,13 +31,28 @@ import com.deveuge.kingsmarch.engine.types.Colour;
 import com.deveuge.kingsmarch.engine.util.Position;
 import com.deveuge.kingsmarch.websocket.MoveResponse;
 
+import lombok.extern.slf4j.Slf4j;
+
 @Controller
+@Slf4j
 @RequestMapping("/sp")
 public class SingleplayerController {
 
 	@Autowired
 	@Qualifier("singleplayerGame")
 	Game game;
+	
+	@Autowired
+	SearchLimits searchLimits;
+	
+	@Autowired
+	AutoPlayer autoPlayer;
+	
+	@Autowired
+	SimpMessageSendingOperations messageTemplate;
+	
+	@Value("${kingsmarch.ai.max-threads:4}")
+	int maxThreads;
 
 	/**
 	 * Single-player game view
@@ -40,11 +63,22 @@ public class SingleplayerController {
 	 */
 	@GetMapping
 	public String index(Model model, @RequestParam Optional<String> fen) {
-		if(fen.isPresent()) {
-        	game.setBoard(new Board(fen.get()));
-        }
+		String gameFEN;
+		int gamePly;
+		synchronized(sessionPlayer()) {
+			if(fen.isPresent()) {
+				autoPlayer.cancel();
+				game.setBoard(new Board(fen.get()));
+			}
+			gameFEN = game.getBoard().getFEN();
+			gamePly = game.getMovesPlayed().size();
+		}
         model.addAttribute("gameType", "singleplayer");
-        model.addAttribute("gameFEN", game.getBoard().getFEN());
+        model.addAttribute("gameFEN", gameFEN);
+        model.addAttribute("gamePly", gamePly);
+        model.addAttribute("channel", autoPlayer.getChannel());
+        model.addAttribute("difficulty", autoPlayer.getDifficulty());
+        model.addAttribute("difficulties", Difficulty.values());
 		return "game";
 	}
 	
@@ -56,15 +90,48 @@ public class SingleplayerController {
 	 */
 	@GetMapping("new")
 	public String newGame(Model model) {
-		game = new Game();
+		synchronized(sessionPlayer()) {
+			autoPlayer.cancel();
+			game.init();
+		}
 		return "redirect:/sp";
 	}
 	
+	/**
+	 * Difficulty controller
+	 * 
+	 * Changes the level of play of the computer for the rest of the session,
+	 * from its next move on.
+	 * 
+	 * @param difficulty {@link Difficulty} New level of play
+	 * @return {@link Difficulty} Level of play of the session
+	 */
+	@PostMapping("difficulty")
+	public @ResponseBody Difficulty setDifficulty(@RequestParam Difficulty difficulty) {
+		autoPlayer.setDifficulty(difficulty);
+		return autoPlayer.getDifficulty();
+	}
+	
+	/**
+	 * Search statistics controller
+	 * 
+	 * Returns the statistics of the search of the last computer's move of the
+	 * session, for debugging.
+	 * 
+	 * @return {@link SearchStatistics} Statistics of the search, empty if the move
+	 *         was cached or none has been played yet
+	 */
+	@GetMapping("statistics")
+	public @ResponseBody SearchStatistics statistics() {
+		return autoPlayer.getStatistics();
+	}
+	
 	/**
 	 * Piece movement controller
 	 * 
 	 * Checks if the movement can be performed, updates the status of the current
-	 * item and returns the data to the front end.
+	 * item and returns the data to the front end. The computer's reply is
+	 * searched meanwhile and pushed to the channel of the session.
 	 * 
 	 * @param source {@link String} Source square in algebraic notation
 	 * @param target {@link String} Target square in algebraic notation
@@ -72,15 +139,20 @@ public class SingleplayerController {
 	 */
 	@PostMapping("move")
 	public @ResponseBody MoveResponse move(String source, String target) {
-		Player player = game.getPlayer(Colour.WHITE);
-		
-		boolean moveCorrect = game.move(player, new Position(source), new Position(target));
-		MoveResponse response = new MoveResponse(moveCorrect);
-		if(moveCorrect) {
-			Move move = game.getLastMove();
-			response.setMoveData(game, move);
+		synchronized(sessionPlayer()) {
+			Player player = game.getPlayer(Colour.WHITE);
+			
+			boolean moveCorrect = game.move(player, new Position(source), new Position(target));
+			MoveResponse response = new MoveResponse(moveCorrect);
+			if(moveCorrect) {
+				Move move = game.getLastMove();
+				response.setMoveData(game, move);
+				if(!response.isPromotion() && !response.isEndOfGame()) {
+					pushAutoMove();
+				}
+			}
+			return response;
 		}
-		return response;
 	}
 	
 	/**
@@ -93,46 +165,110 @@ public class SingleplayerController {
 	 */
 	@PostMapping("promote")
 	public @ResponseBody MoveResponse promote(String promotion) {
-		Player player = game.getPlayer(Colour.WHITE);
-		Move move = game.getLastMove();
-		if(!move.isPawnPromotion() || !player.getColour().equals(move.getPieceMoved().getColour())) {
-			return new MoveResponse(false);
+		synchronized(sessionPlayer()) {
+			Player player = game.getPlayer(Colour.WHITE);
+			Move move = game.getLastMove();
+			if(!move.isPawnPromotion() || !player.getColour().equals(move.getPieceMoved().getColour())) {
+				return new MoveResponse(false);
+			}
+	
+			Piece piece = Piece.createPromotionPiece(promotion, player.getColour());
+			move.getEnd().setPiece(piece);
+			MoveResponse response = new MoveResponse(true);
+			response.setMoveData(game, move);
+			response.setRefresh(true);
+			if(!response.isEndOfGame()) {
+				pushAutoMove();
+			}
+			return response;
 		}
-
-		Piece piece = Piece.createPromotionPiece(promotion, player.getColour());
-		move.getEnd().setPiece(piece);
-		MoveResponse response = new MoveResponse(true);
-		response.setMoveData(game, move);
-		response.setRefresh(true);
-		return response;
     }
 
 	/**
 	 * Computer move controller
 	 * 
-	 * Calculates the next move.
+	 * Calculates the next move within the search limits of the difficulty of the
+	 * session, on the requested number of threads up to the configured maximum
+	 * if the level searches on several threads. The request returns at once and the response is sent when the engine
+	 * executor has played the move; if the search was already started by the
+	 * player's move, its result is sent, and if the move was already played, e.g.
+	 * pushed while the page was not connected, the move is sent again.
 	 * 
-	 * @return {@link MoveResponse}
+	 * @param threads {@link Optional}<{@link Integer}> Threads of the search
+	 * @return {@link CompletableFuture}<{@link MoveResponse}>
 	 */
 	@PostMapping("automove")
-	public @ResponseBody MoveResponse autoMove() {
-		Player player = game.getPlayer(GameAI.AI_COLOUR);
-		Move bestMove = GameAI.getNextMove(game);
-		Position start = new Position(bestMove.getStart());
-		Position end = new Position(bestMove.getEnd());
-		boolean isPawnPromotion = bestMove.getPieceMoved() instanceof Pawn && end.getRow() == 0;
-		game.move(player, start, end);
-		
-		if(isPawnPromotion) {
-			Move move = game.getLastMove();
-			Piece piece = Piece.createPromotionPiece("q", player.getColour()); // AI promotes always to queen for simplicity
-			move.getEnd().setPiece(piece);
+	public @ResponseBody CompletableFuture<MoveResponse> autoMove(@RequestParam Optional<Integer> threads) {
+		return playAutoMove(threads);
+	}
+	
+	/**
+	 * Starts the computer's move and pushes it to the channel of the session
+	 * once played.
+	 */
+	private void pushAutoMove() {
+		String destination = "/topic/" + autoPlayer.getChannel();
+		playAutoMove(Optional.empty()).whenComplete((response, error) -> {
+			if(error != null) {
+				log.debug("Computer move not pushed to {}", destination, error);
+			} else {
+				messageTemplate.convertAndSend(destination, response);
+			}
+		});
+	}
+	
+	/**
+	 * Starts the computer's move on the engine executor.
+	 * 
+	 * @param threads {@link Optional}<{@link Integer}> Threads of the search
+	 * @return {@link CompletableFuture}<{@link MoveResponse}>
+	 */
+	private CompletableFuture<MoveResponse> playAutoMove(Optional<Integer> threads) {
+		// The threads requested replace the configured ones, which the levels searching on one thread ignore
+		SearchLimits configured = threads.map(t -> searchLimits.toBuilder().threads(Math.max(1, Math.min(t, maxThreads))).build())
+				.orElse(searchLimits);
+		SearchLimits limits = autoPlayer.getDifficulty().limits(configured);
+		// The engine thread plays on the game itself, as the session proxies need the request
+		Game sessionGame = (Game) ((ScopedObject) game).getTargetObject();
+		AutoPlayer sessionPlayer = sessionPlayer();
+		return sessionPlayer.play(sessionGame, limits).thenApply(played -> {
+			synchronized(sessionPlayer) {
+				Move bestMove = played != null ? played : getLastAutoMove(sessionGame);
+				if(bestMove == null) {
+					return new MoveResponse(false);
+				}
+				boolean isPawnPromotion = bestMove.getPieceMoved() instanceof Pawn && new Position(bestMove.getEnd()).getRow() == 0;
+				MoveResponse response = new MoveResponse(true);
+				response.setMoveData(sessionGame, bestMove);
+				response.setMove(bestMove.getAlgebraicNotation());
+				response.setRefresh(isPawnPromotion ? true : response.isRefresh());
+				return response;
+			}
+		});
+	}
+	
+	/**
+	 * Gets the last move of the game if the computer played it.
+	 * 
+	 * @param sessionGame {@link Game} Game of the session
+	 * @return {@link Move} Computer's move, null if the player moved last
+	 */
+	private Move getLastAutoMove(Game sessionGame) {
+		if(sessionGame.getMovesPlayed().isEmpty()) {
+			return null;
 		}
-		
-		MoveResponse response = new MoveResponse(true);
-		response.setMoveData(game, bestMove);
-		response.setMove(bestMove.getAlgebraicNotation());
-		response.setRefresh(isPawnPromotion ? true : response.isRefresh());
-		return response;
+		Move move = sessionGame.getLastMove();
+		return GameAI.AI_COLOUR.equals(move.getPieceMoved().getColour()) ? move : null;
+	}
+	
+	/**
+	 * Gets the player of the session. The engine thread plays the computer's
+	 * moves on the game holding its lock, so the requests read and change the
+	 * game holding it too.
+	 * 
+	 * @return {@link AutoPlayer} Player itself, not a proxy bound to the request
+	 */
+	private AutoPlayer sessionPlayer() {
+		return (AutoPlayer) ((ScopedObject) autoPlayer).getTargetObject();
 	}
 }
@@ -4,6 +4,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.Fen;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
 import com.deveuge.kingsmarch.engine.pieces.Bishop;
 import com.deveuge.kingsmarch.engine.pieces.King;
 import com.deveuge.kingsmarch.engine.pieces.Knight;
@@ -13,71 +17,89 @@ import com.deveuge.kingsmarch.engine.pieces.Queen;
 import com.deveuge.kingsmarch.engine.pieces.Rook;
 import com.deveuge.kingsmarch.engine.types.Colour;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 @Getter
 public class Board {
 
 	Square[][] squares;
+	BitboardPosition position = new BitboardPosition();
+	/** Last FEN record built, with the key and clocks of its position */
+	@Getter(AccessLevel.NONE)
+	private String fen;
+	@Getter(AccessLevel.NONE)
+	private long fenKey;
+	@Getter(AccessLevel.NONE)
+	private int fenClocks;
 
 	public Board() {
 		this.init();
 	}
 	
 	/**
-	 * Initialises the board from a FEN string.
+	 * Initialises the board from a FEN record. Side to move, castling rights, en
+	 * passant square and clocks are read when present, see {@link Fen}.
 	 * 
-	 * @param fen {@link String} FEN representing the current state of the board
+	 * @param fen {@link CharSequence} FEN representing the current state of the board
+	 * @throws IllegalArgumentException if the FEN is not valid
 	 */
-	public Board(String fen) {
+	public Board(CharSequence fen) {
 		squares = new Square[8][8];
-		String[] rows = fen.split("/");
-		
-		// Read FEN String
-		int colIndex;
-        int rowIndex = 7;
-        for (String row : rows) {
-            colIndex = 0;
-            for (int i = 0; i < row.length(); i++) {
-                char character = row.charAt(i);
-                if (Character.isDigit(character)) {
-                    colIndex += Character.digit(character, 10);
-                } else {
-                	Piece piece = Piece.createFromAlgebraicNotation(String.valueOf(character));
-                	piece.setFirstMove(false); // TODO
-                	Square sq = new Square(rowIndex, colIndex, piece);
-                	squares[rowIndex][colIndex] = sq;
-                    colIndex++;
-                }
-            }
-            rowIndex--;
-        }
-        
-        // Empty squares
-        for (int row = 0; row < 8; row++) {
+		Fen.parse(fen, position);
+		for (int row = 0; row < 8; row++) {
 			for (int col = 0; col < 8; col++) {
-				if(squares[row][col] == null)
-				squares[row][col] = new Square(row, col, null);
+				int piece = position.getPiece(Bitboards.square(row, col));
+				squares[row][col] = new Square(row, col, piece == Bitboards.NO_PIECE ? null : Piece.of(piece), this);
 			}
 		}
 	}
 	
 	/**
-	 * Constructor that makes a deep copy (except for pieces) of the current
-	 * situation of a board.
+	 * Constructor that makes a deep copy of the current situation of a board.
+	 * Pieces are immutable, so both boards share them.
 	 * 
 	 * @param board {@link Board} Current board state
 	 */
 	public Board(Board board) {
 		squares = new Square[8][8];
+		position = new BitboardPosition(board.getPosition());
 		for(int row = 0; row < board.getSquares().length; row++) {
 			for(int col = 0; col < board.getSquares()[row].length; col++) {
 				Square square = board.getSquares()[row][col];
-				Square clonedSquare = new Square(square.getRow(), square.getCol(), square.getPiece());
+				Square clonedSquare = new Square(square.getRow(), square.getCol(), square.getPiece(), this);
 				this.squares[row][col] = clonedSquare;
 			}
 		}
 	}
+	
+	/**
+	 * Creates a square of this board, placing its piece on the bitboards.
+	 * 
+	 * @param row   Index of the row
+	 * @param col   Index of the column
+	 * @param piece {@link Piece} Piece placed on the square, if any
+	 * @return {@link Square}
+	 */
+	private Square createSquare(int row, int col, Piece piece) {
+		if(piece != null) {
+			position.put(Bitboards.code(piece), Bitboards.square(row, col));
+		}
+		return new Square(row, col, piece, this);
+	}
+	
+	/**
+	 * Reflects on the bitboards the piece currently placed on a square.
+	 * 
+	 * @param square {@link Square} Square whose piece has changed
+	 */
+	void updatePosition(Square square) {
+		int index = Bitboards.square(square.getRow(), square.getCol());
+		position.remove(index);
+		if(square.isOccupied()) {
+			position.put(Bitboards.code(square.getPiece()), index);
+		}
+	}
 
 	/**
 	 * Gets a specific square on the board
@@ -94,6 +116,109 @@ public class Board {
 		}
 	}
 	
+	/**
+	 * Gets a specific square on the board
+	 * 
+	 * @param index Index of the square in the bitboards (0 for a1, 63 for h8)
+	 * @return {@link Square}
+	 */
+	public Square getSquare(int index) {
+		return squares[Bitboards.row(index)][Bitboards.col(index)];
+	}
+	
+	/**
+	 * Gets the Zobrist key of the position on the board.
+	 * 
+	 * @return long Key identifying the position
+	 */
+	public long getZobristKey() {
+		return position.getKey();
+	}
+	
+	/**
+	 * Converts a move of the bitboard engine into a {@link Move} of this board.
+	 * Castling is given as the king moving onto its rook, as expected by
+	 * {@link Game#move}.
+	 * 
+	 * @param move int Encoded move
+	 * @return {@link Move}
+	 */
+	public Move toMove(int move) {
+		Square start = getSquare(Moves.from(move));
+		Square end = getSquare(Moves.isCastling(move) ? Moves.castlingRookSquare(move) : Moves.to(move));
+		return new Move(start, end, start.getPiece());
+	}
+	
+	/**
+	 * Performs a move in place, both on the bitboards and on the squares, so that
+	 * it can be taken back with {@link #unmakeMove(int)} instead of copying the
+	 * board. Pawns reaching the last rank are promoted to a queen.
+	 * 
+	 * @param start {@link Square} Starting position of the movement
+	 * @param end   {@link Square} Final position of the movement
+	 * @return int Encoded move, to be passed to {@link #unmakeMove(int)}
+	 */
+	public int makeMove(Square start, Square end) {
+		int move = position.createMove(Bitboards.square(start.getRow(), start.getCol()),
+				Bitboards.square(end.getRow(), end.getCol()));
+		position.makeMove(move);
+		updateSquares(move);
+		return move;
+	}
+	
+	/**
+	 * Takes back a move made with {@link #makeMove(Square, Square)}.
+	 * 
+	 * @param move int Encoded move returned by {@link #makeMove(Square, Square)}
+	 */
+	public void unmakeMove(int move) {
+		position.unmakeMove(move);
+		updateSquares(move);
+	}
+	
+	/**
+	 * Places on the squares touched by a move the pieces the bitboards have on
+	 * them. Pieces are shared, so there is nothing to keep aside to take the move
+	 * back.
+	 * 
+	 * @param move int Encoded move
+	 */
+	private void updateSquares(int move) {
+		updateSquare(Moves.from(move));
+		updateSquare(Moves.to(move));
+		Square captureSquare = getCaptureSquare(move);
+		if(captureSquare != null) {
+			updateSquare(Bitboards.square(captureSquare.getRow(), captureSquare.getCol()));
+		}
+		if(Moves.isCastling(move)) {
+			int to = Moves.to(move);
+			updateSquare(Moves.castlingRookSquare(move));
+			updateSquare(Moves.flags(move) == Moves.KING_CASTLE ? to - 1 : to + 1);
+		}
+	}
+	
+	private void updateSquare(int index) {
+		int piece = position.getPiece(index);
+		getSquare(index).placePiece(piece == Bitboards.NO_PIECE ? null : Piece.of(piece));
+	}
+	
+	/**
+	 * Gets the square of the piece captured by a move.
+	 * 
+	 * @param move int Encoded move
+	 * @return {@link Square} Square of the captured piece, null if it is not a capture
+	 */
+	private Square getCaptureSquare(int move) {
+		if(!Moves.isCapture(move)) {
+			return null;
+		}
+		int to = Moves.to(move);
+		if(Moves.isEnPassant(move)) {
+			return getSquare(Moves.from(move) < to ? to - 8 : to + 8);
+		}
+		return getSquare(to);
+	}
+	
 	/**
 	 * Gets the square where the king of a certain colour is located.
 	 * 
@@ -101,15 +226,8 @@ public class Board {
 	 * @return {@link Square} Square occupied by the king
 	 */
 	public Square getKingSquare(Colour colour) {
-		for (Square[] rows : squares) {
-			for (Square square : rows) {
-				if (square.isOccupied() && square.getPiece() instanceof King
-						&& square.getPiece().getColour().equals(colour)) {
-					return square;
-				}
-			}
-		}
-		return null;
+		int king = position.getKingSquare(Bitboards.colour(colour));
+		return king == Bitboards.NO_SQUARE ? null : getSquare(king);
 	}
 	
 	/**
@@ -120,13 +238,10 @@ public class Board {
 	 * @return {@link List}<{@link Square}> List of squares occupied by that colour
 	 */
 	public List<Square> getOccupiedSquares(Colour colour) {
-		List<Square> occupiedSquares = new ArrayList<>();
-		for (Square[] rows : squares) {
-		    for (Square square : rows) {
-		        if(square.isOccupied() && colour.equals(square.getPiece().getColour())) {
-		        	occupiedSquares.add(square);
-		        }
- 		    }
+		long occupied = position.getOccupied(Bitboards.colour(colour));
+		List<Square> occupiedSquares = new ArrayList<>(Bitboards.count(occupied));
+		for (; occupied != 0; occupied = Bitboards.withoutFirst(occupied)) {
+			occupiedSquares.add(getSquare(Bitboards.first(occupied)));
 		}
 		return occupiedSquares;
 	}
@@ -136,29 +251,30 @@ public class Board {
 	 */
 	public void init() {
 		squares = new Square[8][8];
+		position.clear();
 		List<Piece> whitePieces = Arrays.asList(
-				new Rook(), new Knight(), new Bishop(),
-				new Queen(), new King(),
-				new Bishop(), new Knight(), new Rook());
+				Rook.WHITE, Knight.WHITE, Bishop.WHITE,
+				Queen.WHITE, King.WHITE,
+				Bishop.WHITE, Knight.WHITE, Rook.WHITE);
 		List<Piece> blackPieces = Arrays.asList(
-				new Rook(), new Knight(), new Bishop(),
-				new Queen(), new King(),
-				new Bishop(), new Knight(), new Rook());
-		blackPieces.forEach(blackPiece -> blackPiece.setColour(Colour.BLACK));
+				Rook.BLACK, Knight.BLACK, Bishop.BLACK,
+				Queen.BLACK, King.BLACK,
+				Bishop.BLACK, Knight.BLACK, Rook.BLACK);
 		
 		for(int col = 0; col < whitePieces.size(); col++) {
-			squares[0][col] = new Square(0, col, whitePieces.get(col));
-			squares[1][col] = new Square(1, col, new Pawn());
-			squares[6][col] = new Square(6, col, new Pawn(Colour.BLACK));
-			squares[7][col] = new Square(7, col, blackPieces.get(col));
+			squares[0][col] = createSquare(0, col, whitePieces.get(col));
+			squares[1][col] = createSquare(1, col, Pawn.WHITE);
+			squares[6][col] = createSquare(6, col, Pawn.BLACK);
+			squares[7][col] = createSquare(7, col, blackPieces.get(col));
 		}
 
 		// Initialize remaining squares without any piece
 		for (int row = 2; row < 6; row++) {
 			for (int col = 0; col < 8; col++) {
-				squares[row][col] = new Square(row, col, null);
+				squares[row][col] = createSquare(row, col, null);
 			}
 		}
+		position.setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
 	}
 	
 	/**
@@ -166,44 +282,29 @@ public class Board {
 	 */
 	public void empty() {
 		squares = new Square[8][8];
+		position.clear();
 		for (int row = 0; row < 8; row++) {
 			for (int col = 0; col < 8; col++) {
-				squares[row][col] = new Square(row, col, null);
+				squares[row][col] = createSquare(row, col, null);
 			}
 		}
 	}
 
 	/**
-	 * Obtains the Forsyth-Edwards Notation of the pieces taking into account the
-	 * current state of the game. Only piece placement data is included.
+	 * Obtains the Forsyth-Edwards Notation of the current state of the game. The
+	 * record is kept until the position changes, so serving the same position
+	 * again does not rebuild it.
 	 * 
-	 * @return {@link String} FEN record with the current piece placement data
+	 * @return {@link String} Complete FEN record
 	 */
 	public String getFEN() {
-		StringBuilder sb = new StringBuilder();
-		for (int row = 7; row >= 0; row--) {
-			int emptySquares = 0;
-			for (int col = 0; col < 8; col++) {
-				Square square = squares[row][col];
-				if(square.isOccupied()) {
-					if(emptySquares != 0) {
-						sb.append(emptySquares);
-						emptySquares = 0;
-					}
-					String pieceNotation = square.getPiece().getAlgebraicNotation();
-					sb.append(square.getPiece().isWhite() ? pieceNotation : pieceNotation.toLowerCase());
-				} else {
-					emptySquares++;
-				}
-			}
-			if(emptySquares != 0) {
-				sb.append(emptySquares);
-				emptySquares = 0;
-			}
-			sb.append("/");
+		long key = position.getKey();
+		int clocks = (position.getHalfmoveClock() << 16) | position.getFullmoveNumber();
+		if(fen == null || fenKey != key || fenClocks != clocks) {
+			fen = Fen.toFen(position);
+			fenKey = key;
+			fenClocks = clocks;
 		}
-		
-		String fen = sb.toString();
-		return fen.substring(0, fen.length() - 1);
+		return fen;
 	}
 }
@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
 import com.deveuge.kingsmarch.engine.pieces.Pawn;
 import com.deveuge.kingsmarch.engine.pieces.Piece;
 import com.deveuge.kingsmarch.engine.types.Colour;
@@ -22,6 +25,10 @@ public class Game {
 	private Player currentTurn;
 	private GameStatus status;
 	private List<Move> movesPlayed = new ArrayList<>();
+	/** Legal moves of the player whose turn it is, kept for the next move */
+	private final LegalMoves legalMoves = new LegalMoves();
+	/** Whether the player whose turn it is is in check */
+	private boolean check;
 
 	public Game() {
 		super();
@@ -41,6 +48,20 @@ public class Game {
 		this.currentTurn = players[0].isWhiteSide() ? players[0] : players[1];
 		this.board = new Board();
 		movesPlayed.clear();
+		updateGameStatus(currentTurn);
+	}
+
+	/**
+	 * Replaces the board of the game, for instance with one read from a FEN
+	 * record. The turn is given to the side to move on the new board.
+	 * 
+	 * @param board {@link Board} New board
+	 */
+	public void setBoard(Board board) {
+		this.board = board;
+		int sideToMove = board.getPosition().getSideToMove();
+		this.currentTurn = Bitboards.colour(sideToMove).equals(players[0].getColour()) ? players[0] : players[1];
+		updateGameStatus(currentTurn);
 	}
 
 	/**
@@ -75,7 +96,8 @@ public class Game {
 			makeRookCastlingMove(move);
 		}
 		performMove(move);
-		updateGameStatus();
+		updatePositionState(move);
+		updateGameStatus(getOpponent());
 		updatePlayerCurrentTurn();
 		return true;
 	}
@@ -93,14 +115,22 @@ public class Game {
 	}
 	
 	/**
-	 * Checks if the piece can be moved.
+	 * Checks if the piece can be moved, looking the move up among the legal moves
+	 * of the position, which are generated once per position. Castling is only
+	 * accepted in the form the board represents it, the king moving onto its rook.
 	 * 
 	 * @param move {@link Move} Movement data
 	 * @return true if the piece can be moved, false otherwise
 	 */
 	private boolean isMoveAllowedForPiece(Move move) {
 		Piece sourcePiece = move.getStart().getPiece();
-		return sourcePiece != null && sourcePiece.canMove(board, move.getStart(), move.getEnd());
+		if(sourcePiece == null) {
+			return false;
+		}
+		BitboardPosition position = board.getPosition();
+		int encodedMove = position.createMove(index(move.getStart()), index(move.getEnd()));
+		legalMoves.update(position, Bitboards.colour(sourcePiece.getColour()));
+		return move.isCastlingMove() == Moves.isCastling(encodedMove) && legalMoves.contains(encodedMove);
 	}
 	
 	/**
@@ -122,23 +152,41 @@ public class Game {
 	 */
 	private void performMove(Move move) {
 		Piece sourcePiece = move.getStart().getPiece();
-		if(sourcePiece instanceof Pawn) {
-			((Pawn) sourcePiece).setCapturableEnPassant(move.isCapturableEnPassant());
-		}
 		if(move.isEnPassant()) {
 			move.getEnPassantCaptureSquare().setPiece(null);
 		}
-		sourcePiece.setFirstMove(false);
 		movesPlayed.add(move);
 		move.getEnd().setPiece(sourcePiece);
 		move.getStart().setPiece(null);
 	}
 	
 	/**
-	 * Updates the status of the game.
+	 * Updates the state of the position that is not given by the pieces (castling
+	 * rights, en passant square, clocks and side to move), keeping its Zobrist key
+	 * up to date. The pieces are already moved through the squares.
+	 * 
+	 * @param move {@link Move} Movement data
 	 */
-	private void updateGameStatus() {		
-		this.setStatus(GameStatus.get(board, getOpponent().getColour()));
+	private void updatePositionState(Move move) {
+		int from = index(move.getStart());
+		int to = index(move.getEnd());
+		int enPassantSquare = move.isCapturableEnPassant() ? (from + to) >>> 1 : Bitboards.NO_SQUARE;
+		boolean irreversible = move.getPieceMoved() instanceof Pawn || move.getPieceKilled() != null;
+		board.getPosition().advance(from, to, enPassantSquare, irreversible, Bitboards.colour(move.getPieceMoved().getColour()));
+	}
+	
+	/**
+	 * Updates the status of the game. The legal moves of the player to move are
+	 * generated once and give both the status and the moves accepted next turn.
+	 * 
+	 * @param player {@link Player} Player whose turn it is to move
+	 */
+	private void updateGameStatus(Player player) {
+		BitboardPosition position = board.getPosition();
+		int colour = Bitboards.colour(player.getColour());
+		legalMoves.update(position, colour);
+		this.check = position.isInCheck(colour);
+		this.setStatus(GameStatus.get(position, colour, legalMoves.size()));
 	}
 	
 	/**
@@ -167,6 +215,25 @@ public class Game {
 		return colour.isWhite() ? players[0] : players[1];
 	}
 	
+	/**
+	 * Gets the index of a square in the bitboards.
+	 * 
+	 * @param square {@link Square} Square of the board
+	 * @return int Square index (0 for a1, 63 for h8)
+	 */
+	private int index(Square square) {
+		return Bitboards.square(square.getRow(), square.getCol());
+	}
+	
+	/**
+	 * Gets the Zobrist key of the current position of the game.
+	 * 
+	 * @return long Key identifying the position
+	 */
+	public long getZobristKey() {
+		return board.getZobristKey();
+	}
+	
 	/**
 	 * Gets the last move made in the game.
 	 * 
@@ -0,0 +1,75 @@
+package com.deveuge.kingsmarch.engine;
+
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+/**
+ * Legal moves of one side in a position, generated once and kept until the
+ * position changes. Besides the list, the destinations of each starting square
+ * are kept as a bitboard, so checking whether a move is legal is a single
+ * lookup.
+ */
+public class LegalMoves {
+
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+	/** Destination squares of the legal moves, by starting square */
+	private final long[] targets = new long[64];
+	private int size;
+	/** Colour and key of the position the moves were generated for, -1 before the first time */
+	private int colour = -1;
+	private long key;
+
+	/**
+	 * Generates the legal moves of a side, unless they were already generated for
+	 * the same position.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the side whose moves are wanted
+	 */
+	public void update(BitboardPosition position, int colour) {
+		if(this.colour == colour && this.key == position.getKey()) {
+			return;
+		}
+		for(int i = 0; i < size; i++) {
+			targets[Moves.from(moves[i])] = Bitboards.EMPTY;
+		}
+		size = MoveGenerator.generateLegal(position, colour, moves);
+		for(int i = 0; i < size; i++) {
+			targets[Moves.from(moves[i])] |= Bitboards.bit(Moves.to(moves[i]));
+		}
+		this.colour = colour;
+		this.key = position.getKey();
+	}
+
+	/**
+	 * Checks if a move is among the legal moves. Promotions are told apart only by
+	 * their squares.
+	 *
+	 * @param move int Encoded move
+	 * @return true if the move is legal, false otherwise
+	 */
+	public boolean contains(int move) {
+		return (targets[Moves.from(move)] & Bitboards.bit(Moves.to(move))) != 0;
+	}
+
+	/**
+	 * Gets one of the legal moves.
+	 *
+	 * @param index int Index of the move, lower than {@link #size()}
+	 * @return int Encoded move
+	 */
+	public int get(int index) {
+		return moves[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
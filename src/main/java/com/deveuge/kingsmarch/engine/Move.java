@@ -1,10 +1,11 @@
 package com.deveuge.kingsmarch.engine;
 
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
 import com.deveuge.kingsmarch.engine.pieces.King;
 import com.deveuge.kingsmarch.engine.pieces.Pawn;
 import com.deveuge.kingsmarch.engine.pieces.Piece;
 import com.deveuge.kingsmarch.engine.types.CastlingDirection;
-import com.deveuge.kingsmarch.engine.util.Position;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -66,7 +67,7 @@ public class Move {
 	 */
 	private boolean checkIfCastlingMove() {
 		return this.pieceMoved instanceof King 
-				&& ((King) this.pieceMoved).isCastlingMove(this.getStart(), this.getEnd());
+				&& King.isCastlingMove(this.getStart(), this.getEnd());
 	}
 	
 	/**
@@ -86,7 +87,8 @@ public class Move {
 	 * @return true if is an allowed situation en passant move, false otherwise
 	 */
 	public boolean checkIfIsCapturableEnPassant() {
-		return this.pieceMoved instanceof Pawn && this.pieceMoved.isFirstMove() 
+		int startingRow = this.pieceMoved.isWhite() ? 1 : 6;
+		return this.pieceMoved instanceof Pawn && this.getStart().getRow() == startingRow
 				&& Math.abs(this.getEnd().getRow() - this.getStart().getRow()) == 2;
 	}
 
@@ -108,7 +110,8 @@ public class Move {
 	 * @return {@link String}
 	 */
 	public String getAlgebraicNotation() {
-		return String.format("%s-%s", new Position(this.getStart()).getAlgebraicNotation(), new Position(this.getEnd()).getAlgebraicNotation());
+		return Moves.toAlgebraicNotation(Bitboards.square(start.getRow(), start.getCol()),
+				Bitboards.square(end.getRow(), end.getCol()));
 	}
 	
 }
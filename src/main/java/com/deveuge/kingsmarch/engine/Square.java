@@ -2,18 +2,52 @@ package com.deveuge.kingsmarch.engine;
 
 import com.deveuge.kingsmarch.engine.pieces.Piece;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.Setter;
 
 @Getter
-@Setter
-@AllArgsConstructor
 public class Square {
 
     private int row;
     private int col;
 	private Piece piece;
+	@Getter(AccessLevel.NONE)
+	private Board board;
+
+	public Square(int row, int col, Piece piece) {
+		this(row, col, piece, null);
+	}
+
+	Square(int row, int col, Piece piece, Board board) {
+		super();
+		this.row = row;
+		this.col = col;
+		this.piece = piece;
+		this.board = board;
+	}
+
+	/**
+	 * Places a piece on the square, keeping the bitboards of the board it belongs
+	 * to in sync.
+	 *
+	 * @param piece {@link Piece} Piece to be placed, null to empty the square
+	 */
+	public void setPiece(Piece piece) {
+		this.piece = piece;
+		if(board != null) {
+			board.updatePosition(this);
+		}
+	}
+
+	/**
+	 * Places a piece on the square without updating the bitboards. Used by the
+	 * board when the bitboards have already been updated by an engine move.
+	 *
+	 * @param piece {@link Piece} Piece to be placed, null to empty the square
+	 */
+	void placePiece(Piece piece) {
+		this.piece = piece;
+	}
 
 	public boolean isOccupied() {
 		return this.getPiece() != null;
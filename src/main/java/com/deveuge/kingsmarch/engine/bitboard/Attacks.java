@@ -0,0 +1,293 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * Precomputed attack tables. Knight, king and pawn attacks are looked up
+ * directly by square, while rook and bishop attacks use magic bitboards: the
+ * relevant blockers of the square are multiplied by a magic number and the
+ * upper bits of the product index a table holding the attack set for that
+ * blocker configuration. Queen attacks are the union of both.
+ * <p>
+ * The squares between two aligned squares and the whole line through them are
+ * also tabulated, as needed to find pins and to block checks.
+ * <p>
+ * The magic numbers are searched once, when the class is initialised, with a
+ * fixed seed so that the tables are the same in every run.
+ */
+public final class Attacks {
+
+	private static final long SEED = 0x4B494E47534D4152L;
+	private static final int[][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+	private static final int[][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+	private static final int[][] KNIGHT_JUMPS = {
+			{ 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+	private static final int[][] KING_STEPS = {
+			{ 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 }, { 1, -1 } };
+
+	private static final long[] KNIGHT = new long[64];
+	private static final long[] KING = new long[64];
+	private static final long[][] PAWN = new long[2][64];
+
+	private static final Magic[] ROOK_MAGICS = new Magic[64];
+	private static final Magic[] BISHOP_MAGICS = new Magic[64];
+
+	private static final long[][] BETWEEN = new long[64][64];
+	private static final long[][] LINE = new long[64][64];
+
+	static {
+		for (int square = 0; square < 64; square++) {
+			KNIGHT[square] = steps(square, KNIGHT_JUMPS);
+			KING[square] = steps(square, KING_STEPS);
+			PAWN[Bitboards.WHITE][square] = steps(square, new int[][] { { 1, -1 }, { 1, 1 } });
+			PAWN[Bitboards.BLACK][square] = steps(square, new int[][] { { -1, -1 }, { -1, 1 } });
+		}
+		SplittableRandom random = new SplittableRandom(SEED);
+		for (int square = 0; square < 64; square++) {
+			ROOK_MAGICS[square] = new Magic(square, ROOK_DIRECTIONS, random);
+			BISHOP_MAGICS[square] = new Magic(square, BISHOP_DIRECTIONS, random);
+		}
+		for (int square = 0; square < 64; square++) {
+			fillLines(square, ROOK_DIRECTIONS);
+			fillLines(square, BISHOP_DIRECTIONS);
+		}
+	}
+
+	private Attacks() {
+	}
+
+	/**
+	 * Forces the initialisation of the tables. Called at application startup so
+	 * that the first game does not pay for the magic number search.
+	 */
+	public static void init() {
+		// Tables are built by the static initialiser
+	}
+
+	public static long knightAttacks(int square) {
+		return KNIGHT[square];
+	}
+
+	public static long kingAttacks(int square) {
+		return KING[square];
+	}
+
+	/**
+	 * Gets the squares attacked by a pawn.
+	 *
+	 * @param colour int Colour of the pawn
+	 * @param square int Square of the pawn
+	 * @return long Attacked squares
+	 */
+	public static long pawnAttacks(int colour, int square) {
+		return PAWN[colour][square];
+	}
+
+	public static long rookAttacks(int square, long occupied) {
+		return ROOK_MAGICS[square].attacks(occupied);
+	}
+
+	public static long bishopAttacks(int square, long occupied) {
+		return BISHOP_MAGICS[square].attacks(occupied);
+	}
+
+	public static long queenAttacks(int square, long occupied) {
+		return ROOK_MAGICS[square].attacks(occupied) | BISHOP_MAGICS[square].attacks(occupied);
+	}
+
+	/**
+	 * Gets the squares strictly between two squares on the same rank, file or
+	 * diagonal.
+	 *
+	 * @param from int First square
+	 * @param to   int Second square
+	 * @return long Squares in between, empty if they are not aligned
+	 */
+	public static long between(int from, int to) {
+		return BETWEEN[from][to];
+	}
+
+	/**
+	 * Gets the whole line (rank, file or diagonal) going through two squares.
+	 *
+	 * @param from int First square
+	 * @param to   int Second square
+	 * @return long Squares of the line, edges included, empty if they are not
+	 *         aligned
+	 */
+	public static long line(int from, int to) {
+		return LINE[from][to];
+	}
+
+	/**
+	 * Gets the squares attacked by a piece.
+	 *
+	 * @param piece    int Piece code
+	 * @param square   int Square of the piece
+	 * @param occupied long Occupied squares
+	 * @return long Attacked squares
+	 */
+	public static long attacks(int piece, int square, long occupied) {
+		switch (Bitboards.typeOf(piece)) {
+		case Bitboards.PAWN:
+			return PAWN[Bitboards.colourOf(piece)][square];
+		case Bitboards.KNIGHT:
+			return KNIGHT[square];
+		case Bitboards.BISHOP:
+			return bishopAttacks(square, occupied);
+		case Bitboards.ROOK:
+			return rookAttacks(square, occupied);
+		case Bitboards.QUEEN:
+			return queenAttacks(square, occupied);
+		default:
+			return KING[square];
+		}
+	}
+
+	/**
+	 * Fills the between and line tables of a square for the directions of a
+	 * sliding piece.
+	 *
+	 * @param square     int Starting square
+	 * @param directions int[][] Row and column offsets of the rays
+	 */
+	private static void fillLines(int square, int[][] directions) {
+		for (int[] direction : directions) {
+			long ray = 0L;
+			long line = Bitboards.bit(square) | slidingAttacks(square, 0L, new int[][] { direction })
+					| slidingAttacks(square, 0L, new int[][] { { -direction[0], -direction[1] } });
+			for (int row = Bitboards.row(square) + direction[0], col = Bitboards.col(square) + direction[1];
+					row >= 0 && row < 8 && col >= 0 && col < 8; row += direction[0], col += direction[1]) {
+				int target = Bitboards.square(row, col);
+				BETWEEN[square][target] = ray;
+				LINE[square][target] = line;
+				ray |= Bitboards.bit(target);
+			}
+		}
+	}
+
+	/**
+	 * Builds the set of squares reached by one step in each direction.
+	 *
+	 * @param square     int Starting square
+	 * @param directions int[][] Row and column offsets
+	 * @return long Reached squares inside the board
+	 */
+	private static long steps(int square, int[][] directions) {
+		long attacks = 0L;
+		for (int[] direction : directions) {
+			int row = Bitboards.row(square) + direction[0];
+			int col = Bitboards.col(square) + direction[1];
+			if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+				attacks |= Bitboards.bit(Bitboards.square(row, col));
+			}
+		}
+		return attacks;
+	}
+
+	/**
+	 * Walks the rays of a sliding piece until the edge of the board or the first
+	 * blocker, which is included. Only used to fill the tables.
+	 *
+	 * @param square     int Square of the piece
+	 * @param occupied   long Occupied squares
+	 * @param directions int[][] Row and column offsets of the rays
+	 * @return long Attacked squares
+	 */
+	private static long slidingAttacks(int square, long occupied, int[][] directions) {
+		long attacks = 0L;
+		for (int[] direction : directions) {
+			int row = Bitboards.row(square) + direction[0];
+			int col = Bitboards.col(square) + direction[1];
+			while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+				long bit = Bitboards.bit(Bitboards.square(row, col));
+				attacks |= bit;
+				if ((occupied & bit) != 0) {
+					break;
+				}
+				row += direction[0];
+				col += direction[1];
+			}
+		}
+		return attacks;
+	}
+
+	/**
+	 * Squares whose occupancy changes the attacks of a sliding piece: every square
+	 * of its rays except the last one before the edge.
+	 *
+	 * @param square     int Square of the piece
+	 * @param directions int[][] Row and column offsets of the rays
+	 * @return long Relevant blocker squares
+	 */
+	private static long relevantBlockers(int square, int[][] directions) {
+		long mask = 0L;
+		for (int[] direction : directions) {
+			int row = Bitboards.row(square) + direction[0];
+			int col = Bitboards.col(square) + direction[1];
+			while (row + direction[0] >= 0 && row + direction[0] < 8
+					&& col + direction[1] >= 0 && col + direction[1] < 8) {
+				mask |= Bitboards.bit(Bitboards.square(row, col));
+				row += direction[0];
+				col += direction[1];
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Magic lookup of one square for one kind of sliding piece.
+	 */
+	private static final class Magic {
+
+		private final long mask;
+		private final long magic;
+		private final int shift;
+		private final long[] attacks;
+
+		Magic(int square, int[][] directions, SplittableRandom random) {
+			this.mask = relevantBlockers(square, directions);
+			int bits = Bitboards.count(mask);
+			this.shift = 64 - bits;
+
+			int size = 1 << bits;
+			long[] blockers = new long[size];
+			long[] reference = new long[size];
+			// Carry-Rippler enumeration of every subset of the mask
+			long subset = 0L;
+			for (int i = 0; i < size; i++) {
+				blockers[i] = subset;
+				reference[i] = slidingAttacks(square, subset, directions);
+				subset = (subset - mask) & mask;
+			}
+
+			long[] table = new long[size];
+			int[] epoch = new int[size];
+			long candidate;
+			int attempt = 0;
+			boolean found;
+			do {
+				attempt++;
+				candidate = random.nextLong() & random.nextLong() & random.nextLong();
+				found = Bitboards.count((mask * candidate) & 0xFF00000000000000L) >= 6;
+				for (int i = 0; found && i < size; i++) {
+					int index = (int) ((blockers[i] * candidate) >>> shift);
+					if (epoch[index] < attempt) {
+						epoch[index] = attempt;
+						table[index] = reference[i];
+					} else if (table[index] != reference[i]) {
+						found = false;
+					}
+				}
+			} while (!found);
+
+			this.magic = candidate;
+			this.attacks = table;
+		}
+
+		long attacks(long occupied) {
+			return attacks[(int) (((occupied & mask) * magic) >>> shift)];
+		}
+	}
+
+}
@@ -0,0 +1,555 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.BISHOP;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.BLACK;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.KING;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.KNIGHT;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.NO_PIECE;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.NO_SQUARE;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.PAWN;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.PIECE_CODES;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.QUEEN;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.ROOK;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.WHITE;
+
+import java.util.Arrays;
+
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Square;
+
+/**
+ * Bitboard representation of a chess position. It keeps one bitboard per
+ * piece type and colour, the occupancy of each colour and of the whole board,
+ * and a square-indexed array with the code of the piece on each square so that
+ * "what is on this square" does not require testing twelve bitboards.
+ * <p>
+ * This is the representation the engine works on. {@link Board} keeps an
+ * instance in sync with its squares and acts as a view of it for the
+ * controllers and the FEN output.
+ * <p>
+ * The position also keeps its Zobrist key (see {@link Zobrist}), updated
+ * incrementally whenever a piece is placed or removed or the state of the
+ * position changes, so it can be used to identify positions without comparing
+ * boards.
+ */
+public class BitboardPosition {
+
+	public static final int WHITE_KINGSIDE = 1;
+	public static final int WHITE_QUEENSIDE = 2;
+	public static final int BLACK_KINGSIDE = 4;
+	public static final int BLACK_QUEENSIDE = 8;
+	public static final int ALL_CASTLING_RIGHTS = 15;
+
+	private static final int INITIAL_HISTORY = 256;
+	/** Castling rights kept when a piece leaves or arrives at each square */
+	private static final int[] CASTLING_MASK = new int[64];
+
+	static {
+		Arrays.fill(CASTLING_MASK, ALL_CASTLING_RIGHTS);
+		CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+		CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+		CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+		CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+		CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+		CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+	}
+
+	private final long[] pieces = new long[PIECE_CODES];
+	private final long[] colours = new long[2];
+	private long occupied;
+	private final int[] mailbox = new int[64];
+	private int sideToMove = WHITE;
+	private int castlingRights;
+	private int enPassantSquare = NO_SQUARE;
+	private int halfmoveClock;
+	private int fullmoveNumber = 1;
+	private long key;
+
+	private long[] history = new long[INITIAL_HISTORY];
+	private long[] keyHistory = new long[INITIAL_HISTORY];
+	private int historySize;
+
+	public BitboardPosition() {
+		Arrays.fill(mailbox, NO_PIECE);
+	}
+
+	/**
+	 * Builds the position from the pieces placed on a board.
+	 *
+	 * @param board {@link Board} Current board situation
+	 */
+	public BitboardPosition(Board board) {
+		this();
+		for (Square[] row : board.getSquares()) {
+			for (Square square : row) {
+				if (square.isOccupied()) {
+					put(Bitboards.code(square.getPiece()), Bitboards.square(square.getRow(), square.getCol()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes a copy of another position.
+	 *
+	 * @param position {@link BitboardPosition} Position to be copied
+	 */
+	public BitboardPosition(BitboardPosition position) {
+		System.arraycopy(position.pieces, 0, pieces, 0, PIECE_CODES);
+		System.arraycopy(position.colours, 0, colours, 0, 2);
+		System.arraycopy(position.mailbox, 0, mailbox, 0, 64);
+		this.occupied = position.occupied;
+		this.sideToMove = position.sideToMove;
+		this.castlingRights = position.castlingRights;
+		this.enPassantSquare = position.enPassantSquare;
+		this.halfmoveClock = position.halfmoveClock;
+		this.fullmoveNumber = position.fullmoveNumber;
+		this.key = position.key;
+	}
+
+	/**
+	 * Places a piece on an empty square.
+	 *
+	 * @param piece  int Piece code
+	 * @param square int Square index
+	 */
+	public void put(int piece, int square) {
+		long bit = Bitboards.bit(square);
+		pieces[piece] |= bit;
+		colours[Bitboards.colourOf(piece)] |= bit;
+		occupied |= bit;
+		mailbox[square] = piece;
+		key ^= Zobrist.piece(piece, square);
+	}
+
+	/**
+	 * Removes the piece placed on a square, if any.
+	 *
+	 * @param square int Square index
+	 * @return int Code of the removed piece, or {@link Bitboards#NO_PIECE}
+	 */
+	public int remove(int square) {
+		int piece = mailbox[square];
+		if (piece != NO_PIECE) {
+			long bit = Bitboards.bit(square);
+			pieces[piece] &= ~bit;
+			colours[Bitboards.colourOf(piece)] &= ~bit;
+			occupied &= ~bit;
+			mailbox[square] = NO_PIECE;
+			key ^= Zobrist.piece(piece, square);
+		}
+		return piece;
+	}
+
+	/**
+	 * Removes every piece from the position.
+	 */
+	public void clear() {
+		Arrays.fill(pieces, 0L);
+		Arrays.fill(colours, 0L);
+		Arrays.fill(mailbox, NO_PIECE);
+		occupied = 0L;
+		sideToMove = WHITE;
+		castlingRights = 0;
+		enPassantSquare = NO_SQUARE;
+		halfmoveClock = 0;
+		fullmoveNumber = 1;
+		key = 0L;
+		historySize = 0;
+	}
+
+	public int getPiece(int square) {
+		return mailbox[square];
+	}
+
+	public long getPieces(int piece) {
+		return pieces[piece];
+	}
+
+	public long getPieces(int colour, int type) {
+		return pieces[Bitboards.piece(colour, type)];
+	}
+
+	public long getOccupied(int colour) {
+		return colours[colour];
+	}
+
+	public long getOccupied() {
+		return occupied;
+	}
+
+	public int getSideToMove() {
+		return sideToMove;
+	}
+
+	public void setSideToMove(int sideToMove) {
+		key ^= Zobrist.sideToMove(this.sideToMove) ^ Zobrist.sideToMove(sideToMove);
+		this.sideToMove = sideToMove;
+	}
+
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+	public void setCastlingRights(int castlingRights) {
+		key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(castlingRights);
+		this.castlingRights = castlingRights;
+	}
+
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+
+	public void setEnPassantSquare(int enPassantSquare) {
+		key ^= Zobrist.enPassant(this.enPassantSquare) ^ Zobrist.enPassant(enPassantSquare);
+		this.enPassantSquare = enPassantSquare;
+	}
+
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	public void setHalfmoveClock(int halfmoveClock) {
+		this.halfmoveClock = halfmoveClock;
+	}
+
+	public int getFullmoveNumber() {
+		return fullmoveNumber;
+	}
+
+	public void setFullmoveNumber(int fullmoveNumber) {
+		this.fullmoveNumber = fullmoveNumber;
+	}
+
+	/**
+	 * Gets the state of the position besides the placement of the pieces.
+	 *
+	 * @return {@link PositionState}
+	 */
+	public PositionState getState() {
+		return new PositionState(sideToMove, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber);
+	}
+
+	/**
+	 * Sets the state of the position besides the placement of the pieces, keeping
+	 * the key up to date.
+	 *
+	 * @param state {@link PositionState} New state
+	 */
+	public void setState(PositionState state) {
+		setSideToMove(state.sideToMove());
+		setCastlingRights(state.castlingRights());
+		setEnPassantSquare(state.enPassantSquare());
+		this.halfmoveClock = state.halfmoveClock();
+		this.fullmoveNumber = state.fullmoveNumber();
+	}
+
+	/**
+	 * Gets the Zobrist key of the position.
+	 *
+	 * @return long Key identifying the position
+	 */
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * Computes the Zobrist key of the position from scratch. The incremental key
+	 * returned by {@link #getKey()} must always be equal to it.
+	 *
+	 * @return long Key identifying the position
+	 */
+	public long computeKey() {
+		long computed = Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare)
+				^ Zobrist.sideToMove(sideToMove);
+		for (long bits = occupied; bits != 0L; bits = Bitboards.withoutFirst(bits)) {
+			int square = Bitboards.first(bits);
+			computed ^= Zobrist.piece(mailbox[square], square);
+		}
+		return computed;
+	}
+
+	/**
+	 * Gets the square where the king of a colour is located.
+	 *
+	 * @param colour int Colour of the king
+	 * @return int Square index, or {@link Bitboards#NO_SQUARE} if there is no king
+	 */
+	public int getKingSquare(int colour) {
+		long king = pieces[Bitboards.piece(colour, KING)];
+		return king == 0L ? NO_SQUARE : Bitboards.first(king);
+	}
+
+	/**
+	 * Gets the bitboard of the kings of both colours.
+	 *
+	 * @return long Squares occupied by a king
+	 */
+	public long getKings() {
+		return pieces[Bitboards.piece(WHITE, KING)] | pieces[Bitboards.piece(BLACK, KING)];
+	}
+
+	/**
+	 * Gets the pieces of a colour that attack a square, given an occupancy of the
+	 * board that may differ from the current one (e.g. to look through a piece).
+	 *
+	 * @param square   int Square index
+	 * @param colour   int Colour of the attackers
+	 * @param occupied long Occupancy used for the sliding pieces
+	 * @return long Squares of the attacking pieces
+	 */
+	public long getAttackers(int square, int colour, long occupied) {
+		long queens = getPieces(colour, QUEEN);
+		return (Attacks.pawnAttacks(Bitboards.opposite(colour), square) & getPieces(colour, PAWN))
+				| (Attacks.knightAttacks(square) & getPieces(colour, KNIGHT))
+				| (Attacks.kingAttacks(square) & getPieces(colour, KING))
+				| (Attacks.bishopAttacks(square, occupied) & (getPieces(colour, BISHOP) | queens))
+				| (Attacks.rookAttacks(square, occupied) & (getPieces(colour, ROOK) | queens));
+	}
+
+	/**
+	 * Checks if a square is attacked by any piece of a colour.
+	 *
+	 * @param square int Square index
+	 * @param colour int Colour of the attackers
+	 * @return true if the square is attacked, false otherwise
+	 */
+	public boolean isAttacked(int square, int colour) {
+		return getAttackers(square, colour, occupied) != 0L;
+	}
+
+	/**
+	 * Checks if the king of a colour is attacked.
+	 *
+	 * @param colour int Colour of the king
+	 * @return true if the king is in check, false otherwise (also if there is no
+	 *         king)
+	 */
+	public boolean isInCheck(int colour) {
+		int king = getKingSquare(colour);
+		return king != NO_SQUARE && isAttacked(king, Bitboards.opposite(colour));
+	}
+
+	/**
+	 * Gets the pieces of a colour that are pinned to their king, that is, the only
+	 * piece between the king and an enemy rook, bishop or queen on the same line.
+	 *
+	 * @param colour int Colour of the king
+	 * @return long Squares of the pinned pieces
+	 */
+	public long getPinned(int colour) {
+		int king = getKingSquare(colour);
+		if (king == NO_SQUARE) {
+			return 0L;
+		}
+		int enemy = Bitboards.opposite(colour);
+		long queens = getPieces(enemy, QUEEN);
+		long snipers = (Attacks.rookAttacks(king, 0L) & (getPieces(enemy, ROOK) | queens))
+				| (Attacks.bishopAttacks(king, 0L) & (getPieces(enemy, BISHOP) | queens));
+		long pinned = 0L;
+		for (; snipers != 0L; snipers = Bitboards.withoutFirst(snipers)) {
+			long blockers = Attacks.between(king, Bitboards.first(snipers)) & occupied;
+			if (Bitboards.count(blockers) == 1) {
+				pinned |= blockers & colours[colour];
+			}
+		}
+		return pinned;
+	}
+
+	/**
+	 * Encodes the move of the piece placed on a square, deducing its flags from
+	 * the position. A king moving onto a rook of its own colour is read as a
+	 * castling move, as the board view represents it that way.
+	 *
+	 * @param from          int Starting square
+	 * @param to            int Final square
+	 * @param promotionType int Piece type a pawn is promoted to on the last rank
+	 * @return int Encoded move
+	 */
+	public int createMove(int from, int to, int promotionType) {
+		int piece = mailbox[from];
+		int target = mailbox[to];
+		int type = Bitboards.typeOf(piece);
+		int colour = Bitboards.colourOf(piece);
+		if (type == KING && from == (colour == WHITE ? 4 : 60)) {
+			if (to == from + 2 || (to == from + 3 && target == Bitboards.piece(colour, ROOK))) {
+				return Moves.of(from, from + 2, Moves.KING_CASTLE);
+			}
+			if (to == from - 2 || (to == from - 4 && target == Bitboards.piece(colour, ROOK))) {
+				return Moves.of(from, from - 2, Moves.QUEEN_CASTLE);
+			}
+		} else if (type == PAWN) {
+			if (to < 8 || to >= 56) {
+				return Moves.promotion(from, to, promotionType, target != NO_PIECE);
+			}
+			if (Math.abs(to - from) == 16) {
+				return Moves.of(from, to, Moves.DOUBLE_PAWN_PUSH);
+			}
+			if (target == NO_PIECE && Bitboards.col(from) != Bitboards.col(to)) {
+				return Moves.of(from, to, Moves.EN_PASSANT);
+			}
+		}
+		return Moves.of(from, to, target != NO_PIECE ? Moves.CAPTURE : Moves.QUIET);
+	}
+
+	/**
+	 * Encodes a move promoting to a queen when a pawn reaches the last rank. See
+	 * {@link #createMove(int, int, int)}.
+	 *
+	 * @param from int Starting square
+	 * @param to   int Final square
+	 * @return int Encoded move
+	 */
+	public int createMove(int from, int to) {
+		return createMove(from, to, QUEEN);
+	}
+
+	/**
+	 * Performs a move in place. The information needed to take it back (captured
+	 * piece, castling rights, en passant square and clocks) is pushed to the
+	 * history of the position so that {@link #unmakeMove(int)} can restore it
+	 * without copying the board. The move is not validated.
+	 *
+	 * @param move int Encoded move
+	 */
+	public void makeMove(int move) {
+		int from = Moves.from(move);
+		int to = Moves.to(move);
+		int flags = Moves.flags(move);
+		int piece = mailbox[from];
+		int us = Bitboards.colourOf(piece);
+
+		int captureSquare = flags == Moves.EN_PASSANT ? (us == WHITE ? to - 8 : to + 8) : to;
+		long previousKey = key;
+		int captured = (flags & Moves.CAPTURE) != 0 ? remove(captureSquare) : NO_PIECE;
+		pushHistory(captured, previousKey);
+
+		remove(from);
+		put((flags & Moves.PROMOTION) != 0 ? Bitboards.piece(us, Moves.promotionType(move)) : piece, to);
+		if (flags == Moves.KING_CASTLE) {
+			movePiece(to + 1, to - 1);
+		} else if (flags == Moves.QUEEN_CASTLE) {
+			movePiece(to - 2, to + 1);
+		}
+
+		advance(from, to, flags == Moves.DOUBLE_PAWN_PUSH ? (from + to) >>> 1 : NO_SQUARE,
+				Bitboards.typeOf(piece) == PAWN || captured != NO_PIECE, us);
+	}
+
+	/**
+	 * Updates the state of the position after the pieces of a move have been
+	 * moved: castling rights, en passant square, clocks and side to move. Used by
+	 * {@link #makeMove(int)} and by the game, which moves the pieces square by
+	 * square.
+	 *
+	 * @param from            int Starting square of the move
+	 * @param to              int Final square of the move
+	 * @param enPassantSquare int Square skipped by a double pawn push, or
+	 *                        {@link Bitboards#NO_SQUARE}
+	 * @param irreversible    boolean Whether the move was a pawn move or a capture,
+	 *                        which resets the halfmove clock
+	 * @param us              int Colour of the side that made the move
+	 */
+	public void advance(int from, int to, int enPassantSquare, boolean irreversible, int us) {
+		setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+		setEnPassantSquare(enPassantSquare);
+		halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+		if (us == BLACK) {
+			fullmoveNumber++;
+		}
+		setSideToMove(Bitboards.opposite(us));
+	}
+
+	/**
+	 * Takes back the last move made with {@link #makeMove(int)}.
+	 *
+	 * @param move int Encoded move, the same passed to {@link #makeMove(int)}
+	 */
+	public void unmakeMove(int move) {
+		int from = Moves.from(move);
+		int to = Moves.to(move);
+		int flags = Moves.flags(move);
+		long record = history[--historySize];
+
+		int piece = remove(to);
+		int us = Bitboards.colourOf(piece);
+		if ((flags & Moves.PROMOTION) != 0) {
+			piece = Bitboards.piece(us, PAWN);
+		}
+		put(piece, from);
+		if (flags == Moves.KING_CASTLE) {
+			movePiece(to - 1, to + 1);
+		} else if (flags == Moves.QUEEN_CASTLE) {
+			movePiece(to + 1, to - 2);
+		}
+		int captured = (int) (record & 0xF) - 1;
+		if (captured != NO_PIECE) {
+			put(captured, flags == Moves.EN_PASSANT ? (us == WHITE ? to - 8 : to + 8) : to);
+		}
+		restoreState(record);
+	}
+
+	/**
+	 * Passes the turn to the opponent without moving (null move), as the search
+	 * does to find out whether the position is good even without moving. Taken
+	 * back with {@link #unmakeNullMove()}.
+	 */
+	public void makeNullMove() {
+		pushHistory(NO_PIECE, key);
+		setEnPassantSquare(NO_SQUARE);
+		halfmoveClock++;
+		if (sideToMove == BLACK) {
+			fullmoveNumber++;
+		}
+		setSideToMove(Bitboards.opposite(sideToMove));
+	}
+
+	/**
+	 * Takes back the last null move made with {@link #makeNullMove()}.
+	 */
+	public void unmakeNullMove() {
+		restoreState(history[--historySize]);
+	}
+
+	/**
+	 * Restores the state and the key of the position from the undo record just
+	 * popped from the history.
+	 *
+	 * @param record long Undo record, see {@link #pushHistory(int, long)}
+	 */
+	private void restoreState(long record) {
+		long state = record >>> 4;
+		sideToMove = PositionState.sideToMove(state);
+		castlingRights = PositionState.castlingRights(state);
+		enPassantSquare = PositionState.enPassantSquare(state);
+		halfmoveClock = PositionState.halfmoveClock(state);
+		fullmoveNumber = PositionState.fullmoveNumber(state);
+		key = keyHistory[historySize];
+	}
+
+	private void movePiece(int from, int to) {
+		int piece = remove(from);
+		if (piece != NO_PIECE) {
+			put(piece, to);
+		}
+	}
+
+	/**
+	 * Pushes the undo record of the move being made: the captured piece + 1 (bits
+	 * 0-3) followed by the packed {@link PositionState}. The key of the position
+	 * is kept in a parallel stack.
+	 *
+	 * @param captured int Code of the captured piece, if any
+	 * @param key      long Key of the position before the move
+	 */
+	private void pushHistory(int captured, long key) {
+		if (historySize == history.length) {
+			history = Arrays.copyOf(history, historySize * 2);
+			keyHistory = Arrays.copyOf(keyHistory, historySize * 2);
+		}
+		keyHistory[historySize] = key;
+		history[historySize++] = (captured + 1)
+				| (PositionState.pack(sideToMove, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber) << 4);
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+import com.deveuge.kingsmarch.engine.pieces.Piece;
+import com.deveuge.kingsmarch.engine.types.Colour;
+
+/**
+ * Constants and helpers shared by the bitboard engine.
+ * <p>
+ * Squares are numbered from 0 (a1) to 63 (h8), so that the index of a square
+ * is <code>row * 8 + col</code> using the same row and column indexes as
+ * {@link com.deveuge.kingsmarch.engine.Board}. A bitboard is a <code>long</code>
+ * where bit <i>n</i> is set when square <i>n</i> belongs to the set.
+ * <p>
+ * Pieces are encoded as <code>colour * 6 + type</code>, which gives twelve
+ * codes from 0 (white pawn) to 11 (black king).
+ */
+public final class Bitboards {
+
+	public static final int WHITE = 0;
+	public static final int BLACK = 1;
+
+	public static final int PAWN = 0;
+	public static final int KNIGHT = 1;
+	public static final int BISHOP = 2;
+	public static final int ROOK = 3;
+	public static final int QUEEN = 4;
+	public static final int KING = 5;
+
+	public static final int PIECE_TYPES = 6;
+	public static final int PIECE_CODES = 12;
+	public static final int NO_PIECE = -1;
+	public static final int NO_SQUARE = -1;
+
+	public static final String PIECE_LETTERS = "PNBRQK";
+
+	public static final long EMPTY = 0L;
+	public static final long FILE_A = 0x0101010101010101L;
+	public static final long FILE_H = FILE_A << 7;
+	public static final long RANK_1 = 0xFFL;
+	public static final long RANK_3 = RANK_1 << 16;
+	public static final long RANK_6 = RANK_1 << 40;
+	public static final long RANK_8 = RANK_1 << 56;
+
+	private Bitboards() {
+	}
+
+	public static int square(int row, int col) {
+		return (row << 3) | col;
+	}
+
+	public static int row(int square) {
+		return square >>> 3;
+	}
+
+	public static int col(int square) {
+		return square & 7;
+	}
+
+	public static long bit(int square) {
+		return 1L << square;
+	}
+
+	public static int piece(int colour, int type) {
+		return colour * PIECE_TYPES + type;
+	}
+
+	public static int colourOf(int piece) {
+		return piece < PIECE_TYPES ? WHITE : BLACK;
+	}
+
+	public static int typeOf(int piece) {
+		return piece < PIECE_TYPES ? piece : piece - PIECE_TYPES;
+	}
+
+	public static int opposite(int colour) {
+		return colour ^ 1;
+	}
+
+	/**
+	 * Gets the index of the lowest square of a bitboard.
+	 *
+	 * @param bitboard long Non empty bitboard
+	 * @return int Square index
+	 */
+	public static int first(long bitboard) {
+		return Long.numberOfTrailingZeros(bitboard);
+	}
+
+	/**
+	 * Removes the lowest square of a bitboard. Used together with
+	 * {@link #first(long)} to iterate over the squares of a set.
+	 *
+	 * @param bitboard long Bitboard
+	 * @return long Bitboard without its lowest square
+	 */
+	public static long withoutFirst(long bitboard) {
+		return bitboard & (bitboard - 1);
+	}
+
+	public static int count(long bitboard) {
+		return Long.bitCount(bitboard);
+	}
+
+	/**
+	 * Gets the engine code of a board piece.
+	 *
+	 * @param piece {@link Piece} Piece placed on the board
+	 * @return int Piece code, or {@link #NO_PIECE} for an empty square
+	 */
+	public static int code(Piece piece) {
+		if (piece == null) {
+			return NO_PIECE;
+		}
+		int type = PIECE_LETTERS.indexOf(piece.getAlgebraicNotation().charAt(0));
+		return piece(colour(piece.getColour()), type);
+	}
+
+	public static int colour(Colour colour) {
+		return colour.isWhite() ? WHITE : BLACK;
+	}
+
+	public static Colour colour(int colour) {
+		return colour == WHITE ? Colour.WHITE : Colour.BLACK;
+	}
+
+}
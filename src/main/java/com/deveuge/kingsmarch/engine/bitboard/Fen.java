@@ -0,0 +1,228 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+import java.util.Arrays;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation: piece placement,
+ * side to move, castling rights, en passant square, halfmove clock and
+ * fullmove number.
+ * <p>
+ * Only the piece placement is required when reading. Missing fields take the
+ * values of a position nobody has moved in yet except for the castling rights,
+ * which are not granted unless the record says so.
+ */
+public final class Fen {
+
+	public static final String INITIAL = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	private static final String PIECE_CHARS = "PNBRQKpnbrqk";
+	private static final String CASTLING_CHARS = "KQkq";
+
+	/** Piece code of each character, {@link Bitboards#NO_PIECE} if it is not a piece */
+	private static final int[] PIECES = new int[128];
+	/** Castling right of each character, 0 if it is not a castling right */
+	private static final int[] CASTLING = new int[128];
+
+	static {
+		Arrays.fill(PIECES, Bitboards.NO_PIECE);
+		for (int piece = 0; piece < Bitboards.PIECE_CODES; piece++) {
+			PIECES[PIECE_CHARS.charAt(piece)] = piece;
+		}
+		for (int i = 0; i < CASTLING_CHARS.length(); i++) {
+			CASTLING[CASTLING_CHARS.charAt(i)] = 1 << i;
+		}
+	}
+
+	private Fen() {
+	}
+
+	/**
+	 * Sets up a position from a FEN record. The position is cleared first.
+	 *
+	 * @param fen      {@link CharSequence} FEN record
+	 * @param position {@link BitboardPosition} Position to set up
+	 * @throws IllegalArgumentException if the record is not valid
+	 */
+	public static void parse(CharSequence fen, BitboardPosition position) {
+		position.clear();
+		int length = fen.length();
+		int i = skipSpaces(fen, 0);
+
+		// Piece placement, from the eighth rank down
+		int row = 7;
+		int col = 0;
+		for (; i < length && fen.charAt(i) != ' '; i++) {
+			char c = fen.charAt(i);
+			if (c == '/') {
+				if (col != 8 || row == 0) {
+					throw invalid(fen);
+				}
+				row--;
+				col = 0;
+			} else if (c >= '1' && c <= '8') {
+				col += c - '0';
+			} else {
+				int piece = c < PIECES.length ? PIECES[c] : Bitboards.NO_PIECE;
+				if (piece == Bitboards.NO_PIECE || col > 7) {
+					throw invalid(fen);
+				}
+				position.put(piece, Bitboards.square(row, col++));
+			}
+			if (col > 8) {
+				throw invalid(fen);
+			}
+		}
+		if (row != 0 || col != 8) {
+			throw invalid(fen);
+		}
+
+		// Side to move
+		i = skipSpaces(fen, i);
+		if (i < length) {
+			char side = fen.charAt(i++);
+			if (side != 'w' && side != 'b') {
+				throw invalid(fen);
+			}
+			position.setSideToMove(side == 'w' ? Bitboards.WHITE : Bitboards.BLACK);
+		}
+
+		// Castling rights
+		i = skipSpaces(fen, i);
+		if (i < length && fen.charAt(i) == '-') {
+			i++;
+		} else {
+			int castlingRights = 0;
+			for (; i < length && fen.charAt(i) != ' '; i++) {
+				char c = fen.charAt(i);
+				int right = c < CASTLING.length ? CASTLING[c] : 0;
+				if (right == 0) {
+					throw invalid(fen);
+				}
+				castlingRights |= right;
+			}
+			position.setCastlingRights(castlingRights);
+		}
+
+		// En passant square
+		i = skipSpaces(fen, i);
+		if (i < length && fen.charAt(i) == '-') {
+			i++;
+		} else if (i < length) {
+			if (i + 1 >= length) {
+				throw invalid(fen);
+			}
+			int file = fen.charAt(i) - 'a';
+			int rank = fen.charAt(i + 1) - '1';
+			if (file < 0 || file > 7 || (rank != 2 && rank != 5)) {
+				throw invalid(fen);
+			}
+			position.setEnPassantSquare(Bitboards.square(rank, file));
+			i += 2;
+		}
+
+		// Clocks
+		i = skipSpaces(fen, i);
+		if (i < length) {
+			int end = fieldEnd(fen, i);
+			position.setHalfmoveClock(parseNumber(fen, i, end));
+			i = skipSpaces(fen, end);
+		}
+		if (i < length) {
+			int end = fieldEnd(fen, i);
+			position.setFullmoveNumber(Math.max(1, parseNumber(fen, i, end)));
+			i = skipSpaces(fen, end);
+		}
+		if (i < length) {
+			throw invalid(fen);
+		}
+	}
+
+	/**
+	 * Writes the FEN record of a position.
+	 *
+	 * @param position {@link BitboardPosition} Position to write
+	 * @return {@link String} Complete FEN record
+	 */
+	public static String toFen(BitboardPosition position) {
+		StringBuilder sb = new StringBuilder(90);
+		for (int row = 7; row >= 0; row--) {
+			int emptySquares = 0;
+			for (int col = 0; col < 8; col++) {
+				int piece = position.getPiece(Bitboards.square(row, col));
+				if (piece == Bitboards.NO_PIECE) {
+					emptySquares++;
+					continue;
+				}
+				if (emptySquares != 0) {
+					sb.append((char) ('0' + emptySquares));
+					emptySquares = 0;
+				}
+				sb.append(PIECE_CHARS.charAt(piece));
+			}
+			if (emptySquares != 0) {
+				sb.append((char) ('0' + emptySquares));
+			}
+			if (row != 0) {
+				sb.append('/');
+			}
+		}
+
+		sb.append(position.getSideToMove() == Bitboards.WHITE ? " w " : " b ");
+
+		int castlingRights = position.getCastlingRights();
+		if (castlingRights == 0) {
+			sb.append('-');
+		}
+		for (int i = 0; i < CASTLING_CHARS.length(); i++) {
+			if ((castlingRights & (1 << i)) != 0) {
+				sb.append(CASTLING_CHARS.charAt(i));
+			}
+		}
+
+		int enPassantSquare = position.getEnPassantSquare();
+		sb.append(' ');
+		if (enPassantSquare == Bitboards.NO_SQUARE) {
+			sb.append('-');
+		} else {
+			sb.append((char) ('a' + Bitboards.col(enPassantSquare))).append((char) ('1' + Bitboards.row(enPassantSquare)));
+		}
+
+		return sb.append(' ').append(position.getHalfmoveClock())
+				.append(' ').append(position.getFullmoveNumber())
+				.toString();
+	}
+
+	private static int skipSpaces(CharSequence fen, int i) {
+		while (i < fen.length() && fen.charAt(i) == ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	private static int fieldEnd(CharSequence fen, int i) {
+		while (i < fen.length() && fen.charAt(i) != ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	private static int parseNumber(CharSequence fen, int start, int end) {
+		int number = 0;
+		for (int i = start; i < end; i++) {
+			char c = fen.charAt(i);
+			if (c < '0' || c > '9') {
+				throw invalid(fen);
+			}
+			number = number * 10 + (c - '0');
+			if (number > 0xFFFF) {
+				throw invalid(fen);
+			}
+		}
+		return number;
+	}
+
+	private static IllegalArgumentException invalid(CharSequence fen) {
+		return new IllegalArgumentException("Invalid FEN: " + fen);
+	}
+
+}
@@ -0,0 +1,446 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.BISHOP;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.KING;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.KNIGHT;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.NO_SQUARE;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.PAWN;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.QUEEN;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.ROOK;
+import static com.deveuge.kingsmarch.engine.bitboard.Bitboards.WHITE;
+
+/**
+ * Move generator of the bitboard engine. Moves are written as encoded
+ * <code>int</code>s (see {@link Moves}) into an array supplied by the caller,
+ * usually one preallocated buffer per ply of the search, so generating the
+ * moves of a position does not allocate any object.
+ * <p>
+ * Pawn moves are generated set-wise by shifting the whole pawn bitboard, and
+ * the moves of the other pieces are looked up in the {@link Attacks} tables.
+ */
+public final class MoveGenerator {
+
+	/** Upper bound of the number of moves of any position, used to size buffers */
+	public static final int MAX_MOVES = 256;
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Generates the pseudo-legal moves of a colour, that is, every move of its
+	 * pieces without verifying whether it leaves its own king in check. Castling
+	 * is only generated when the king is not in check and does not pass through an
+	 * attacked square.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the pieces to move
+	 * @param moves    int[] Buffer where the moves are written, from index 0
+	 * @return int Number of moves written
+	 */
+	public static int generate(BitboardPosition position, int colour, int[] moves) {
+		return generate(position, colour, moves, true, true);
+	}
+
+	/**
+	 * Generates the pseudo-legal captures and promotions of a colour, the moves
+	 * searched by a quiescence search.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the pieces to move
+	 * @param moves    int[] Buffer where the moves are written, from index 0
+	 * @return int Number of moves written
+	 */
+	public static int generateCaptures(BitboardPosition position, int colour, int[] moves) {
+		return generate(position, colour, moves, true, false);
+	}
+
+	/**
+	 * Generates the pseudo-legal moves of a colour that are neither captures nor
+	 * promotions, castling included. Together with
+	 * {@link #generateCaptures(BitboardPosition, int, int[])} they are all the
+	 * moves of the colour, so a search may generate the captures first and the
+	 * quiet moves only when no capture has caused a cutoff.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the pieces to move
+	 * @param moves    int[] Buffer where the moves are written, from index 0
+	 * @return int Number of moves written
+	 */
+	public static int generateQuiets(BitboardPosition position, int colour, int[] moves) {
+		return generate(position, colour, moves, false, true);
+	}
+
+	private static int generate(BitboardPosition position, int colour, int[] moves, boolean tactical, boolean quiet) {
+		long enemies = position.getOccupied(Bitboards.opposite(colour));
+		long occupied = position.getOccupied();
+		long targets = (tactical ? enemies : 0L) | (quiet ? ~occupied : 0L);
+
+		int count = generatePawnMoves(position, colour, enemies, occupied, tactical, quiet, moves, 0);
+		for (long pieces = position.getPieces(colour, KNIGHT); pieces != 0L; pieces = Bitboards.withoutFirst(pieces)) {
+			int from = Bitboards.first(pieces);
+			count = addMoves(from, Attacks.knightAttacks(from) & targets, enemies, moves, count);
+		}
+		for (long pieces = position.getPieces(colour, BISHOP); pieces != 0L; pieces = Bitboards.withoutFirst(pieces)) {
+			int from = Bitboards.first(pieces);
+			count = addMoves(from, Attacks.bishopAttacks(from, occupied) & targets, enemies, moves, count);
+		}
+		for (long pieces = position.getPieces(colour, ROOK); pieces != 0L; pieces = Bitboards.withoutFirst(pieces)) {
+			int from = Bitboards.first(pieces);
+			count = addMoves(from, Attacks.rookAttacks(from, occupied) & targets, enemies, moves, count);
+		}
+		for (long pieces = position.getPieces(colour, QUEEN); pieces != 0L; pieces = Bitboards.withoutFirst(pieces)) {
+			int from = Bitboards.first(pieces);
+			count = addMoves(from, Attacks.queenAttacks(from, occupied) & targets, enemies, moves, count);
+		}
+		int king = position.getKingSquare(colour);
+		if (king != NO_SQUARE) {
+			count = addMoves(king, Attacks.kingAttacks(king) & targets, enemies, moves, count);
+			if (quiet) {
+				count = generateCastling(position, colour, king, occupied, moves, count);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Generates the legal moves of a colour.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the pieces to move
+	 * @param moves    int[] Buffer where the moves are written, from index 0
+	 * @return int Number of moves written
+	 */
+	public static int generateLegal(BitboardPosition position, int colour, int[] moves) {
+		return keepLegal(position, colour, moves, generate(position, colour, moves));
+	}
+
+	/**
+	 * Generates the legal captures and promotions of a colour.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the pieces to move
+	 * @param moves    int[] Buffer where the moves are written, from index 0
+	 * @return int Number of moves written
+	 */
+	public static int generateLegalCaptures(BitboardPosition position, int colour, int[] moves) {
+		return keepLegal(position, colour, moves, generateCaptures(position, colour, moves));
+	}
+
+	/**
+	 * Removes the moves that leave the king in check from a list of pseudo-legal
+	 * moves. The checkers, the pinned pieces and the squares that stop a check are
+	 * computed once for the position, so each move is accepted or rejected
+	 * without making it.
+	 */
+	private static int keepLegal(BitboardPosition position, int colour, int[] moves, int count) {
+		int king = position.getKingSquare(colour);
+		if (king == NO_SQUARE) {
+			return count;
+		}
+		long pinned = position.getPinned(colour);
+		long evasions = getEvasions(position, colour, king);
+		int legal = 0;
+		for (int i = 0; i < count; i++) {
+			if (isLegal(position, colour, king, pinned, evasions, moves[i])) {
+				moves[legal++] = moves[i];
+			}
+		}
+		return legal;
+	}
+
+	/**
+	 * Gets the pieces of a colour pinned to its king and the squares its other
+	 * pieces may move to, so that
+	 * {@link #isLegal(BitboardPosition, int, long, long, int)} can check the
+	 * moves of the position one by one.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the side to move
+	 * @return long Evasion mask: any square if there is no check, the checker and
+	 *         the squares in between for a single check, and none for a double
+	 *         check
+	 */
+	public static long getEvasions(BitboardPosition position, int colour) {
+		int king = position.getKingSquare(colour);
+		return king == NO_SQUARE ? ~0L : getEvasions(position, colour, king);
+	}
+
+	/**
+	 * Checks if a pseudo-legal move leaves the king of the side moving attacked,
+	 * without making it.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the side moving
+	 * @param pinned   long Pinned pieces of the side moving, see
+	 *                 {@link BitboardPosition#getPinned(int)}
+	 * @param evasions long Evasion mask, see
+	 *                 {@link #getEvasions(BitboardPosition, int)}
+	 * @param move     int Pseudo-legal encoded move
+	 * @return true if the move is legal, false otherwise
+	 */
+	public static boolean isLegal(BitboardPosition position, int colour, long pinned, long evasions, int move) {
+		int king = position.getKingSquare(colour);
+		return king == NO_SQUARE || isLegal(position, colour, king, pinned, evasions, move);
+	}
+
+	/**
+	 * Checks if a move, usually found in an earlier search of another position
+	 * (the move of a transposition table or a killer move), is one of the
+	 * pseudo-legal moves of a colour, with the same flags its generation would
+	 * give it. It is checked from the pieces on its squares, without generating
+	 * the moves of the position.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the pieces to move
+	 * @param move     int Encoded move
+	 * @return true if the move would be generated, false otherwise
+	 */
+	public static boolean isPseudoLegal(BitboardPosition position, int colour, int move) {
+		int from = Moves.from(move);
+		int to = Moves.to(move);
+		int piece = position.getPiece(from);
+		if (move == Moves.NONE || piece == Bitboards.NO_PIECE || Bitboards.colourOf(piece) != colour
+				|| (position.getOccupied(colour) & Bitboards.bit(to)) != 0L) {
+			return false;
+		}
+		long enemies = position.getOccupied(Bitboards.opposite(colour));
+		long occupied = position.getOccupied();
+		boolean capture = (enemies & Bitboards.bit(to)) != 0L;
+		int type = Bitboards.typeOf(piece);
+		if (type == PAWN) {
+			return isPseudoLegalPawnMove(position, colour, from, to, capture, move);
+		}
+		if (Moves.isCastling(move)) {
+			boolean kingside = Moves.flags(move) == Moves.KING_CASTLE;
+			int home = colour == WHITE ? 4 : 60;
+			return type == KING && from == home && to == (kingside ? home + 2 : home - 2)
+					&& canCastle(position, colour, kingside, occupied);
+		}
+		return Moves.flags(move) == (capture ? Moves.CAPTURE : Moves.QUIET)
+				&& (Attacks.attacks(piece, from, occupied) & Bitboards.bit(to)) != 0L;
+	}
+
+	private static boolean isPseudoLegalPawnMove(BitboardPosition position, int colour, int from, int to,
+			boolean capture, int move) {
+		boolean white = colour == WHITE;
+		int forward = white ? 8 : -8;
+		long empty = ~position.getOccupied();
+		if (Moves.isEnPassant(move)) {
+			return to == position.getEnPassantSquare() && Bitboards.row(to) == (white ? 5 : 2)
+					&& (Attacks.pawnAttacks(colour, from) & Bitboards.bit(to)) != 0L;
+		}
+		if (Moves.isPromotion(move) != (to < 8 || to >= 56)) {
+			return false;
+		}
+		if (Moves.isCapture(move)) {
+			return capture && (Attacks.pawnAttacks(colour, from) & Bitboards.bit(to)) != 0L;
+		}
+		if (Moves.flags(move) == Moves.DOUBLE_PAWN_PUSH) {
+			long path = Bitboards.bit(from + forward) | Bitboards.bit(to);
+			return Bitboards.row(from) == (white ? 1 : 6) && to == from + 2 * forward && (empty & path) == path;
+		}
+		return (Moves.flags(move) == Moves.QUIET || Moves.isPromotion(move)) && to == from + forward
+				&& (empty & Bitboards.bit(to)) != 0L;
+	}
+
+	/**
+	 * Checks if a colour has any legal move, stopping at the first one found.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the pieces to move
+	 * @param moves    int[] Buffer used to generate the moves
+	 * @return true if there is at least one legal move, false otherwise
+	 */
+	public static boolean hasLegalMove(BitboardPosition position, int colour, int[] moves) {
+		int count = generate(position, colour, moves);
+		int king = position.getKingSquare(colour);
+		if (king == NO_SQUARE) {
+			return count > 0;
+		}
+		long pinned = position.getPinned(colour);
+		long evasions = getEvasions(position, colour, king);
+		for (int i = 0; i < count; i++) {
+			if (isLegal(position, colour, king, pinned, evasions, moves[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a move is one of the legal moves of a colour.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the pieces to move
+	 * @param move     int Encoded move
+	 * @return true if the move is legal, false otherwise
+	 */
+	public static boolean isLegalMove(BitboardPosition position, int colour, int move) {
+		int[] moves = new int[MAX_MOVES];
+		int count = generateLegal(position, colour, moves);
+		for (int i = 0; i < count; i++) {
+			if (moves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the squares a piece other than the king may move to without leaving the
+	 * king in check: any square if there is no check, the checker and the squares
+	 * in between for a single check, and none for a double check.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the side to move
+	 * @param king     int Square of its king
+	 * @return long Evasion mask
+	 */
+	private static long getEvasions(BitboardPosition position, int colour, int king) {
+		long checkers = position.getAttackers(king, Bitboards.opposite(colour), position.getOccupied());
+		if (checkers == 0L) {
+			return ~0L;
+		}
+		if (Bitboards.count(checkers) > 1) {
+			return 0L;
+		}
+		return checkers | Attacks.between(king, Bitboards.first(checkers));
+	}
+
+	/**
+	 * Checks if a pseudo-legal move leaves the king of the side moving attacked.
+	 * King moves look at the attackers of the final square with the king removed
+	 * from the board, en passant captures recompute the attackers of the king as
+	 * two pawns leave the same rank, and any other move must stop the check and
+	 * keep a pinned piece on the line of its pin.
+	 *
+	 * @param position {@link BitboardPosition} Current position
+	 * @param colour   int Colour of the side moving
+	 * @param king     int Square of its king
+	 * @param pinned   long Pinned pieces of the side moving
+	 * @param evasions long Evasion mask, see {@link #getEvasions}
+	 * @param move     int Encoded move
+	 * @return true if the king is safe after the move, false otherwise
+	 */
+	private static boolean isLegal(BitboardPosition position, int colour, int king, long pinned, long evasions,
+			int move) {
+		int from = Moves.from(move);
+		int to = Moves.to(move);
+		int enemy = Bitboards.opposite(colour);
+		long occupied = position.getOccupied();
+		if (from == king) {
+			return position.getAttackers(to, enemy, occupied ^ Bitboards.bit(king)) == 0L;
+		}
+		if (Moves.isEnPassant(move)) {
+			long captured = Bitboards.bit(colour == WHITE ? to - 8 : to + 8);
+			long after = (occupied ^ Bitboards.bit(from) ^ captured) | Bitboards.bit(to);
+			return (position.getAttackers(king, enemy, after) & ~captured) == 0L;
+		}
+		return (evasions & Bitboards.bit(to)) != 0L
+				&& ((pinned & Bitboards.bit(from)) == 0L || (Attacks.line(king, from) & Bitboards.bit(to)) != 0L);
+	}
+
+	private static int generatePawnMoves(BitboardPosition position, int colour, long enemies, long occupied,
+			boolean tactical, boolean quiet, int[] moves, int count) {
+		long pawns = position.getPieces(colour, PAWN);
+		boolean white = colour == WHITE;
+		int forward = white ? 8 : -8;
+		long empty = ~occupied;
+
+		long singlePushes = shift(pawns, forward) & empty;
+		long doublePushes = shift(singlePushes & (white ? Bitboards.RANK_3 : Bitboards.RANK_6), forward) & empty;
+		// Pushes that promote are tactical moves, the others are quiet
+		long lastRank = white ? Bitboards.RANK_8 : Bitboards.RANK_1;
+		singlePushes &= (tactical ? lastRank : 0L) | (quiet ? ~lastRank : 0L);
+		if (!quiet) {
+			doublePushes = 0L;
+		}
+		long westCaptures = tactical ? shift(pawns & ~Bitboards.FILE_A, forward - 1) & enemies : 0L;
+		long eastCaptures = tactical ? shift(pawns & ~Bitboards.FILE_H, forward + 1) & enemies : 0L;
+
+		count = addPawnMoves(singlePushes, forward, Moves.QUIET, moves, count);
+		count = addPawnMoves(westCaptures, forward - 1, Moves.CAPTURE, moves, count);
+		count = addPawnMoves(eastCaptures, forward + 1, Moves.CAPTURE, moves, count);
+		for (; doublePushes != 0L; doublePushes = Bitboards.withoutFirst(doublePushes)) {
+			int to = Bitboards.first(doublePushes);
+			moves[count++] = Moves.of(to - 2 * forward, to, Moves.DOUBLE_PAWN_PUSH);
+		}
+
+		// The en passant square is only valid for the side that did not push the pawn
+		int enPassant = position.getEnPassantSquare();
+		if (tactical && enPassant != NO_SQUARE && Bitboards.row(enPassant) == (white ? 5 : 2)) {
+			long attackers = Attacks.pawnAttacks(Bitboards.opposite(colour), enPassant) & pawns;
+			for (; attackers != 0L; attackers = Bitboards.withoutFirst(attackers)) {
+				moves[count++] = Moves.of(Bitboards.first(attackers), enPassant, Moves.EN_PASSANT);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the pawn moves reaching a set of squares, all of them made in the same
+	 * direction. Moves reaching the last rank are added once per promotion piece.
+	 */
+	private static int addPawnMoves(long targets, int direction, int flags, int[] moves, int count) {
+		for (; targets != 0L; targets = Bitboards.withoutFirst(targets)) {
+			int to = Bitboards.first(targets);
+			int from = to - direction;
+			if (to < 8 || to >= 56) {
+				boolean capture = flags == Moves.CAPTURE;
+				for (int type = QUEEN; type >= KNIGHT; type--) {
+					moves[count++] = Moves.promotion(from, to, type, capture);
+				}
+			} else {
+				moves[count++] = Moves.of(from, to, flags);
+			}
+		}
+		return count;
+	}
+
+	private static int addMoves(int from, long targets, long enemies, int[] moves, int count) {
+		for (; targets != 0L; targets = Bitboards.withoutFirst(targets)) {
+			int to = Bitboards.first(targets);
+			moves[count++] = Moves.of(from, to, (enemies & Bitboards.bit(to)) != 0L ? Moves.CAPTURE : Moves.QUIET);
+		}
+		return count;
+	}
+
+	private static int generateCastling(BitboardPosition position, int colour, int king, long occupied, int[] moves,
+			int count) {
+		int home = colour == WHITE ? 4 : 60;
+		if (king != home) {
+			return count;
+		}
+		if (canCastle(position, colour, true, occupied)) {
+			moves[count++] = Moves.of(home, home + 2, Moves.KING_CASTLE);
+		}
+		if (canCastle(position, colour, false, occupied)) {
+			moves[count++] = Moves.of(home, home - 2, Moves.QUEEN_CASTLE);
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if the king of a colour, on its home square, can castle to one side:
+	 * it has the right, the rook is on its square, the squares between them are
+	 * empty, and neither the king nor the square it crosses is attacked.
+	 */
+	private static boolean canCastle(BitboardPosition position, int colour, boolean kingside, long occupied) {
+		boolean white = colour == WHITE;
+		int home = white ? 4 : 60;
+		int right = kingside ? (white ? BitboardPosition.WHITE_KINGSIDE : BitboardPosition.BLACK_KINGSIDE)
+				: (white ? BitboardPosition.WHITE_QUEENSIDE : BitboardPosition.BLACK_QUEENSIDE);
+		int rook = kingside ? home + 3 : home - 4;
+		long between = kingside ? Bitboards.bit(home + 1) | Bitboards.bit(home + 2)
+				: Bitboards.bit(home - 1) | Bitboards.bit(home - 2) | Bitboards.bit(home - 3);
+		int enemy = Bitboards.opposite(colour);
+		return (position.getCastlingRights() & right) != 0
+				&& (position.getPieces(colour, ROOK) & Bitboards.bit(rook)) != 0L && (occupied & between) == 0L
+				&& !position.isAttacked(home, enemy) && !position.isAttacked(kingside ? home + 1 : home - 1, enemy);
+	}
+
+	private static long shift(long bitboard, int offset) {
+		return offset > 0 ? bitboard << offset : bitboard >>> -offset;
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+/**
+ * Moves of the bitboard engine packed in an <code>int</code>:
+ * <ul>
+ * <li>Bits 0-5: starting square.</li>
+ * <li>Bits 6-11: final square. For castling it is the final square of the
+ * king.</li>
+ * <li>Bits 12-15: flags. Bit 14 marks a capture and bit 15 a promotion, whose
+ * piece is given by the two lowest flag bits.</li>
+ * </ul>
+ */
+public final class Moves {
+
+	public static final int NONE = 0;
+
+	public static final int QUIET = 0;
+	public static final int DOUBLE_PAWN_PUSH = 1;
+	public static final int KING_CASTLE = 2;
+	public static final int QUEEN_CASTLE = 3;
+	public static final int CAPTURE = 4;
+	public static final int EN_PASSANT = 5;
+	public static final int PROMOTION = 8;
+	public static final int PROMOTION_CAPTURE = 12;
+
+	private Moves() {
+	}
+
+	public static int of(int from, int to, int flags) {
+		return from | (to << 6) | (flags << 12);
+	}
+
+	/**
+	 * Creates a promotion move.
+	 *
+	 * @param from          int Starting square
+	 * @param to            int Final square
+	 * @param pieceType     int Type of the promoted piece (knight to queen)
+	 * @param capture       boolean Whether the promotion captures a piece
+	 * @return int Encoded move
+	 */
+	public static int promotion(int from, int to, int pieceType, boolean capture) {
+		return of(from, to, (capture ? PROMOTION_CAPTURE : PROMOTION) | (pieceType - Bitboards.KNIGHT));
+	}
+
+	public static int from(int move) {
+		return move & 0x3F;
+	}
+
+	public static int to(int move) {
+		return (move >>> 6) & 0x3F;
+	}
+
+	public static int flags(int move) {
+		return (move >>> 12) & 0xF;
+	}
+
+	public static boolean isCapture(int move) {
+		return (flags(move) & CAPTURE) != 0;
+	}
+
+	public static boolean isPromotion(int move) {
+		return (flags(move) & PROMOTION) != 0;
+	}
+
+	public static boolean isCastling(int move) {
+		int flags = flags(move);
+		return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+	}
+
+	public static boolean isEnPassant(int move) {
+		return flags(move) == EN_PASSANT;
+	}
+
+	/**
+	 * Gets the type of the piece a pawn is promoted to.
+	 *
+	 * @param move int Promotion move
+	 * @return int Piece type
+	 */
+	public static int promotionType(int move) {
+		return Bitboards.KNIGHT + (flags(move) & 3);
+	}
+
+	/**
+	 * Gets the square of the rook moved by a castling move.
+	 *
+	 * @param move int Castling move
+	 * @return int Starting square of the rook
+	 */
+	public static int castlingRookSquare(int move) {
+		return flags(move) == KING_CASTLE ? to(move) + 1 : to(move) - 2;
+	}
+
+	/**
+	 * Obtains the notation of a move from its squares, e.g. <code>e2-e4</code>.
+	 *
+	 * @param from int Starting square
+	 * @param to   int Final square
+	 * @return {@link String}
+	 */
+	public static String toAlgebraicNotation(int from, int to) {
+		char[] notation = {
+				(char) ('a' + Bitboards.col(from)), (char) ('1' + Bitboards.row(from)), '-',
+				(char) ('a' + Bitboards.col(to)), (char) ('1' + Bitboards.row(to)) };
+		return new String(notation);
+	}
+
+	/**
+	 * Obtains the notation of an encoded move, e.g. <code>e2-e4</code>.
+	 *
+	 * @param move int Encoded move
+	 * @return {@link String}
+	 */
+	public static String toAlgebraicNotation(int move) {
+		return toAlgebraicNotation(from(move), to(move));
+	}
+
+	/**
+	 * Obtains the notation of an encoded move with the promotion piece appended,
+	 * e.g. <code>b7-b8q</code>, so that the four promotions of a pawn are told
+	 * apart.
+	 *
+	 * @param move int Encoded move
+	 * @return {@link String}
+	 */
+	public static String toNotation(int move) {
+		String notation = toAlgebraicNotation(move);
+		if (!isPromotion(move)) {
+			return notation;
+		}
+		return notation + Character.toLowerCase(Bitboards.PIECE_LETTERS.charAt(promotionType(move)));
+	}
+
+}
@@ -0,0 +1,154 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Performance test of the move generator: counts the leaf nodes of the tree of
+ * legal moves down to a given depth. The counts of well known positions are
+ * published, so a mismatch points at a bug in move generation or in
+ * make/unmake, and the time it takes measures their speed.
+ * <p>
+ * The "divide" breakdown gives the count below each root move, which is how a
+ * wrong count is narrowed down to a single move.
+ */
+public final class Perft {
+
+	private Perft() {
+	}
+
+	/**
+	 * Result of a perft run.
+	 *
+	 * @param divide Nodes below each root move, by move notation
+	 * @param nodes  long Total number of leaf nodes
+	 * @param nanos  long Time taken, in nanoseconds
+	 */
+	public record Result(Map<String, Long> divide, long nodes, long nanos) {
+
+		/**
+		 * Gets the number of leaf nodes counted per second.
+		 *
+		 * @return long Nodes per second
+		 */
+		public long nodesPerSecond() {
+			return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+		}
+	}
+
+	/**
+	 * Counts the leaf nodes of a position. The position is left as it was.
+	 *
+	 * @param position {@link BitboardPosition} Position to count from
+	 * @param depth    int Depth in plies
+	 * @return long Number of leaf nodes
+	 */
+	public static long perft(BitboardPosition position, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		return perft(position, new int[depth][MoveGenerator.MAX_MOVES], depth);
+	}
+
+	/**
+	 * Counts the leaf nodes below each root move of a position given as FEN.
+	 *
+	 * @param fen   {@link CharSequence} FEN record of the position
+	 * @param depth int Depth in plies, at least 1
+	 * @return {@link Result}
+	 */
+	public static Result divide(CharSequence fen, int depth) {
+		return divide(fen, depth, null);
+	}
+
+	/**
+	 * Counts the leaf nodes below each root move of a position given as FEN,
+	 * counting each root move as a separate task of a fork-join pool.
+	 *
+	 * @param fen   {@link CharSequence} FEN record of the position
+	 * @param depth int Depth in plies, at least 1
+	 * @param pool  {@link ForkJoinPool} Pool running the root moves, null to count
+	 *              them one after another on the calling thread
+	 * @return {@link Result}
+	 */
+	public static Result divide(CharSequence fen, int depth, ForkJoinPool pool) {
+		BitboardPosition position = new BitboardPosition();
+		Fen.parse(fen, position);
+
+		long start = System.nanoTime();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		List<RootMoveTask> tasks = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			tasks.add(new RootMoveTask(position, moves[i], depth - 1));
+		}
+		if (pool == null) {
+			tasks.forEach(RootMoveTask::invoke);
+		} else {
+			pool.invoke(new RecursiveTask<Void>() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected Void compute() {
+					ForkJoinTask.invokeAll(tasks);
+					return null;
+				}
+			});
+		}
+
+		Map<String, Long> divide = new LinkedHashMap<>();
+		long nodes = 0;
+		for (RootMoveTask task : tasks) {
+			long moveNodes = task.join();
+			divide.put(Moves.toNotation(task.move), moveNodes);
+			nodes += moveNodes;
+		}
+		return new Result(Collections.unmodifiableMap(divide), nodes, System.nanoTime() - start);
+	}
+
+	private static long perft(BitboardPosition position, int[][] moveBuffers, int depth) {
+		int[] moves = moveBuffers[depth - 1];
+		int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		if (depth == 1) {
+			return count;
+		}
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			position.makeMove(moves[i]);
+			nodes += perft(position, moveBuffers, depth - 1);
+			position.unmakeMove(moves[i]);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Counts the nodes below one root move on its own copy of the position.
+	 */
+	private static final class RootMoveTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient BitboardPosition position;
+		private final int move;
+		private final int depth;
+
+		private RootMoveTask(BitboardPosition root, int move, int depth) {
+			this.position = new BitboardPosition(root);
+			this.move = move;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			position.makeMove(move);
+			return perft(position, depth);
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+/**
+ * State of a position that is not given by the placement of its pieces: side
+ * to move, castling rights, en passant square and clocks. It replaces the
+ * per-piece flags (first move, capturable en passant) so that pieces can be
+ * shared between boards.
+ * <p>
+ * The state can also be packed in a <code>long</code>, which is how the
+ * position keeps it in its undo history without allocating: side to move (bit
+ * 0), castling rights (1-4), en passant square + 1 (5-11), halfmove clock
+ * (12-27) and fullmove number (28-43).
+ *
+ * @param sideToMove      int Colour to move
+ * @param castlingRights  int Castling rights, see {@link BitboardPosition}
+ * @param enPassantSquare int Square skipped by the last double pawn push, or
+ *                        {@link Bitboards#NO_SQUARE}
+ * @param halfmoveClock   int Moves since the last capture or pawn move
+ * @param fullmoveNumber  int Number of the move, starting at 1
+ */
+public record PositionState(int sideToMove, int castlingRights, int enPassantSquare, int halfmoveClock,
+		int fullmoveNumber) {
+
+	public static final PositionState INITIAL = new PositionState(Bitboards.WHITE,
+			BitboardPosition.ALL_CASTLING_RIGHTS, Bitboards.NO_SQUARE, 0, 1);
+
+	/**
+	 * Packs the state in a <code>long</code>.
+	 *
+	 * @return long Packed state
+	 */
+	public long pack() {
+		return pack(sideToMove, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber);
+	}
+
+	/**
+	 * Unpacks a state packed with {@link #pack()}.
+	 *
+	 * @param packed long Packed state
+	 * @return {@link PositionState}
+	 */
+	public static PositionState unpack(long packed) {
+		return new PositionState(sideToMove(packed), castlingRights(packed), enPassantSquare(packed),
+				halfmoveClock(packed), fullmoveNumber(packed));
+	}
+
+	static long pack(int sideToMove, int castlingRights, int enPassantSquare, int halfmoveClock,
+			int fullmoveNumber) {
+		return sideToMove
+				| ((long) castlingRights << 1)
+				| ((long) (enPassantSquare + 1) << 5)
+				| ((long) (halfmoveClock & 0xFFFF) << 12)
+				| ((long) (fullmoveNumber & 0xFFFF) << 28);
+	}
+
+	static int sideToMove(long packed) {
+		return (int) packed & 1;
+	}
+
+	static int castlingRights(long packed) {
+		return (int) (packed >>> 1) & 0xF;
+	}
+
+	static int enPassantSquare(long packed) {
+		return (int) ((packed >>> 5) & 0x7F) - 1;
+	}
+
+	static int halfmoveClock(long packed) {
+		return (int) (packed >>> 12) & 0xFFFF;
+	}
+
+	static int fullmoveNumber(long packed) {
+		return (int) (packed >>> 28) & 0xFFFF;
+	}
+
+}
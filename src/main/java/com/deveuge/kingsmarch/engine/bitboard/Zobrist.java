@@ -0,0 +1,89 @@
+package com.deveuge.kingsmarch.engine.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys used to hash positions (Zobrist hashing). The key of a position
+ * is the XOR of the keys of each piece on its square, the side to move (when it
+ * is black), the castling rights and the file of the en passant square, so a
+ * move only needs to XOR in and out the few keys it changes.
+ * <p>
+ * The keys are generated with a fixed seed, so the same position gets the same
+ * key in every game and every run.
+ */
+public final class Zobrist {
+
+	private static final long SEED = 0x5A4F425249535448L;
+
+	private static final long[][] PIECE_SQUARE = new long[Bitboards.PIECE_CODES][64];
+	private static final long[] CASTLING = new long[16];
+	private static final long[] EN_PASSANT_FILE = new long[8];
+	private static final long BLACK_TO_MOVE;
+
+	static {
+		SplittableRandom random = new SplittableRandom(SEED);
+		for (int piece = 0; piece < Bitboards.PIECE_CODES; piece++) {
+			for (int square = 0; square < 64; square++) {
+				PIECE_SQUARE[piece][square] = random.nextLong();
+			}
+		}
+		// Each right has its own key, so combinations are the XOR of their rights
+		long[] rights = { random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong() };
+		for (int castling = 0; castling < CASTLING.length; castling++) {
+			for (int right = 0; right < rights.length; right++) {
+				if ((castling & (1 << right)) != 0) {
+					CASTLING[castling] ^= rights[right];
+				}
+			}
+		}
+		for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+			EN_PASSANT_FILE[file] = random.nextLong();
+		}
+		BLACK_TO_MOVE = random.nextLong();
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Gets the key of a piece placed on a square.
+	 *
+	 * @param piece  int Piece code
+	 * @param square int Square index
+	 * @return long Key
+	 */
+	public static long piece(int piece, int square) {
+		return PIECE_SQUARE[piece][square];
+	}
+
+	/**
+	 * Gets the key of a set of castling rights.
+	 *
+	 * @param castlingRights int Castling rights of the position
+	 * @return long Key
+	 */
+	public static long castling(int castlingRights) {
+		return CASTLING[castlingRights];
+	}
+
+	/**
+	 * Gets the key of an en passant square, which only depends on its file.
+	 *
+	 * @param square int En passant square, or {@link Bitboards#NO_SQUARE}
+	 * @return long Key, 0 if there is no en passant square
+	 */
+	public static long enPassant(int square) {
+		return square == Bitboards.NO_SQUARE ? 0L : EN_PASSANT_FILE[Bitboards.col(square)];
+	}
+
+	/**
+	 * Gets the key of the side to move.
+	 *
+	 * @param colour int Side to move
+	 * @return long Key, 0 if white is to move
+	 */
+	public static long sideToMove(int colour) {
+		return colour == Bitboards.BLACK ? BLACK_TO_MOVE : 0L;
+	}
+
+}
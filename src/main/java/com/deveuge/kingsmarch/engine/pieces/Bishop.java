@@ -1,11 +1,11 @@
 package com.deveuge.kingsmarch.engine.pieces;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.deveuge.kingsmarch.engine.Board;
 import com.deveuge.kingsmarch.engine.Square;
-import com.deveuge.kingsmarch.engine.types.MovementDirection;
+import com.deveuge.kingsmarch.engine.bitboard.Attacks;
+import com.deveuge.kingsmarch.engine.types.Colour;
 
 public class Bishop extends Piece {
 
@@ -22,27 +22,19 @@ public class Bishop extends Piece {
 		{-20,-10,-10,-10,-10,-10,-10,-20}
 	};
 
+	public static final Bishop WHITE = new Bishop(Colour.WHITE);
+	public static final Bishop BLACK = new Bishop(Colour.BLACK);
+
 	public Bishop() {
 		super(ALGEBRAIC_NOTATION, VALUE, POSITIONAL_VALUE);
 	}
 	
-	/**
-	 * <strong>Bishop ♝</strong>: It moves and captures along diagonals without
-	 * jumping over intervening pieces.<br>
-	 * {@inheritDoc}
-	 */
-	@Override
-	protected boolean isLegalMove(Board board, Square start, Square end) {
-		return checkDiagonalMovement(board, start, end);
+	public Bishop(Colour colour) {
+		super(ALGEBRAIC_NOTATION, VALUE, POSITIONAL_VALUE, colour);
 	}
-
+	
 	@Override
 	public List<Square> getPotentialMoves(Board board, Square start) {
-		List<Square> moves = new ArrayList<>();
-		moves.addAll(getPotentialDiagonalMoves(board, start, MovementDirection.UP_LEFT));
-		moves.addAll(getPotentialDiagonalMoves(board, start, MovementDirection.UP_RIGHT));
-		moves.addAll(getPotentialDiagonalMoves(board, start, MovementDirection.DOWN_LEFT));
-		moves.addAll(getPotentialDiagonalMoves(board, start, MovementDirection.DOWN_RIGHT));
-		return moves;
+		return toSquares(board, Attacks.bishopAttacks(index(start), board.getPosition().getOccupied()));
 	}
 }
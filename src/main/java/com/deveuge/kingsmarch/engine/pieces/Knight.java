@@ -1,10 +1,11 @@
 package com.deveuge.kingsmarch.engine.pieces;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.deveuge.kingsmarch.engine.Board;
 import com.deveuge.kingsmarch.engine.Square;
+import com.deveuge.kingsmarch.engine.bitboard.Attacks;
+import com.deveuge.kingsmarch.engine.types.Colour;
 
 public class Knight extends Piece {
 
@@ -21,53 +22,20 @@ public class Knight extends Piece {
 		{-50,-40,-30,-30,-30,-30,-40,-50}
 	};
 
+	public static final Knight WHITE = new Knight(Colour.WHITE);
+	public static final Knight BLACK = new Knight(Colour.BLACK);
+
 	public Knight() {
 		super(ALGEBRAIC_NOTATION, VALUE, POSITIONAL_VALUE);
 	}
 	
-	/**
-	 * <strong>Knight ♞</strong>: It moves two squares vertically and one square
-	 * horizontally, or two squares horizontally and one square vertically, jumping
-	 * over other pieces.<br>
-	 * {@inheritDoc}
-	 */
-	@Override
-	protected boolean isLegalMove(Board board, Square start, Square end) {
-		int verticalMovement = Math.abs(start.getRow() - end.getRow());
-		int horizontalMovement = Math.abs(start.getCol() - end.getCol());
-		return verticalMovement * horizontalMovement == 2;
+	public Knight(Colour colour) {
+		super(ALGEBRAIC_NOTATION, VALUE, POSITIONAL_VALUE, colour);
 	}
-
+	
 	@Override
 	public List<Square> getPotentialMoves(Board board, Square start) {
-		List<Square> moves = new ArrayList<>();
-		
-		int startCol = start.getCol();
-		int startRow = start.getRow();
-		
-		int[][] positions = {
-				// Up left
-				{startRow + 1, startCol - 2},
-				{startRow + 2, startCol - 1},
-				// Up right
-				{startRow + 1, startCol + 2},
-				{startRow + 2, startCol + 1},
-				// Down left
-				{startRow - 1, startCol - 2},
-				{startRow - 2, startCol - 1},
-				// Down right
-				{startRow - 1, startCol + 2},
-				{startRow - 2, startCol + 1}
-		};
-
-		for(int[] position : positions) {
-			Square square = board.getSquare(position[0], position[1]);
-			if(square != null) {
-				moves.add(square);
-			}
-		}
-
-		return moves;
+		return toSquares(board, Attacks.knightAttacks(index(start)));
 	}
 
 }
@@ -1,15 +1,13 @@
 package com.deveuge.kingsmarch.engine.pieces;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.deveuge.kingsmarch.engine.Board;
 import com.deveuge.kingsmarch.engine.Square;
+import com.deveuge.kingsmarch.engine.bitboard.Attacks;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
 import com.deveuge.kingsmarch.engine.types.Colour;
 
-import lombok.Getter;
-import lombok.Setter;
-
 public class Pawn extends Piece {
 
 	public final static String ALGEBRAIC_NOTATION = "P";
@@ -25,9 +23,8 @@ public class Pawn extends Piece {
 		{0,  0,  0,  0,  0,  0,  0,  0},
 	};
 	
-	@Getter
-	@Setter
-	public boolean capturableEnPassant;
+	public static final Pawn WHITE = new Pawn(Colour.WHITE);
+	public static final Pawn BLACK = new Pawn(Colour.BLACK);
 
 	public Pawn() {
 		super(ALGEBRAIC_NOTATION, VALUE, POSITIONAL_VALUE);
@@ -46,72 +43,38 @@ public class Pawn extends Piece {
 	private int getHorizontalMovement(Square start, Square end) {
 		return Math.abs(end.getCol() - start.getCol());
 	}
-
+	
 	/**
-	 * <strong>Pawn ♟</strong>: It may move one square directly forward, it may move
-	 * two squares directly forward on its first move, and it may capture one square
-	 * diagonally forward.<br>
-	 * {@inheritDoc}
+	 * Checks if the pawn is still on its starting rank, so it has not moved yet.
+	 * 
+	 * @param start {@link Square} Position of the pawn
+	 * @return true if the pawn is on its starting rank, false otherwise
 	 */
-	@Override
-	protected boolean isLegalMove(Board board, Square start, Square end) {
-		int verticalMovement = getVerticalMovement(start, end);
-		int horizontalMovement = getHorizontalMovement(start,end);
-		
-		boolean isCaptureMovement = verticalMovement == 1 && horizontalMovement == 1;
-		boolean isForwardMovement = verticalMovement == 1 && horizontalMovement == 0;
-		boolean isForwarMovementTwoSquares = verticalMovement == 2 && horizontalMovement == 0;
-
-		boolean isForwardMovementAllowed = isFirstMove()
-				? isForwardMovement || isForwarMovementTwoSquares
-				: isForwardMovement;
-
-		return end.isOccupied() 
-				? isCaptureMovement
-				: isForwardMovementAllowed || isCaptureMovement && isEnPassantCapture(board, start, end);
+	private boolean isOnStartingRank(Square start) {
+		return start.getRow() == (this.isWhite() ? 1 : 6);
 	}
-	
+
 	@Override
 	public List<Square> getPotentialMoves(Board board, Square start) {
-		List<Square> moves = new ArrayList<>();
-
-		int startRow = start.getRow();
-		int startCol = start.getCol();
-		
-		List<int[]> positions = new ArrayList<>();
-		
-		if(this.getColour().isWhite()) {
-			// Upper rank + captures
-			positions.add(new int[] {startRow + 1, startCol});
-			positions.add(new int[] {startRow + 1, startCol + 1});
-			positions.add(new int[] {startRow + 1, startCol - 1});
-			if(this.isFirstMove()) {
-				// First move
-				positions.add(new int[] {startRow + 2, startCol});
-			}
-		} else {
-			// Lower rank + captures
-			positions.add(new int[] {startRow - 1, startCol});
-			positions.add(new int[] {startRow - 1, startCol + 1});
-			positions.add(new int[] {startRow - 1, startCol - 1});
-			if(this.isFirstMove()) {
-				// First move
-				positions.add(new int[] {startRow - 2, startCol});
+		int square = index(start);
+		boolean white = this.getColour().isWhite();
+		// Captures
+		long targets = Attacks.pawnAttacks(Bitboards.colour(this.getColour()), square);
+		// Forward moves, two squares on the first move
+		int forward = white ? square + 8 : square - 8;
+		if(forward >= 0 && forward < 64) {
+			targets |= Bitboards.bit(forward);
+			int twoSquares = white ? forward + 8 : forward - 8;
+			if(isOnStartingRank(start) && twoSquares >= 0 && twoSquares < 64) {
+				targets |= Bitboards.bit(twoSquares);
 			}
 		}
-		
-		for(int[] position : positions) {
-			Square square = board.getSquare(position[0], position[1]);
-			if(square != null) {
-				moves.add(square);
-			}
-		}
-
-		return moves;
+		return toSquares(board, targets);
 	}
 
 	/**
-	 * Checks if the pawn is making a capture en passant.
+	 * Checks if the pawn is making a capture en passant, that is, moving to the
+	 * square the last double pawn push of the opponent went through.
 	 * 
 	 * @param board {@link Board} Current board situation
 	 * @param start {@link Square} Starting position of the movement
@@ -126,8 +89,8 @@ public class Pawn extends Piece {
 		Square pawnSquare = getEnPassantPawnSquare(board, start, end);
 		boolean isPawnSquareCorrect = pawnSquare != null && pawnSquare.getPiece() instanceof Pawn;
 		
-		return isCaptureMovement && isPawnSquareCorrect && ((Pawn) pawnSquare.getPiece()).isCapturableEnPassant()
-				&& !((Pawn) pawnSquare.getPiece()).getColour().equals(start.getPiece().getColour());
+		return isCaptureMovement && isPawnSquareCorrect && index(end) == board.getPosition().getEnPassantSquare()
+				&& !pawnSquare.getPiece().getColour().equals(start.getPiece().getColour());
 	}
 	
 	/**
@@ -1,11 +1,11 @@
 package com.deveuge.kingsmarch.engine.pieces;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.deveuge.kingsmarch.engine.Board;
 import com.deveuge.kingsmarch.engine.Square;
-import com.deveuge.kingsmarch.engine.types.MovementDirection;
+import com.deveuge.kingsmarch.engine.bitboard.Attacks;
+import com.deveuge.kingsmarch.engine.types.Colour;
 
 public class Rook extends Piece {
 
@@ -22,41 +22,19 @@ public class Rook extends Piece {
 		{0,  0,  0,  5,  5,  0,  0,  0}
 	};
 
+	public static final Rook WHITE = new Rook(Colour.WHITE);
+	public static final Rook BLACK = new Rook(Colour.BLACK);
+
 	public Rook() {
 		super(ALGEBRAIC_NOTATION, VALUE, POSITIONAL_VALUE);
 	}
 	
-	/**
-	 * <strong>Rook ♜</strong>: It may move any number of squares horizontally or
-	 * vertically without jumping.<br>
-	 * {@inheritDoc}
-	 */
-	@Override
-	protected boolean isLegalMove(Board board, Square start, Square end) {
-		int startRow = start.getRow();
-		int endRow = end.getRow();
-		int startCol = start.getCol();
-		int endCol = end.getCol();
-
-		switch (MovementDirection.get(start, end)) {
-		case UP:
-			return checkVerticalMovement(board, startRow + 1, endRow, startCol);
-		case DOWN:
-			return checkVerticalMovement(board, endRow + 1, startRow, startCol);
-		case LEFT:
-			return checkHorizontalMovement(board, endCol + 1, startCol, startRow);
-		case RIGHT:
-			return checkHorizontalMovement(board, startCol + 1, endCol, startRow);
-		default:
-			return false;
-		}
+	public Rook(Colour colour) {
+		super(ALGEBRAIC_NOTATION, VALUE, POSITIONAL_VALUE, colour);
 	}
-
+	
 	@Override
 	public List<Square> getPotentialMoves(Board board, Square start) {
-		List<Square> moves = new ArrayList<>();
-		moves.addAll(getPotentialVerticalMoves(board, start));
-		moves.addAll(getPotentialHorizontalMoves(board, start));
-		return moves;
+		return toSquares(board, Attacks.rookAttacks(index(start), board.getPosition().getOccupied()));
 	}
 }
@@ -1,12 +1,9 @@
 package com.deveuge.kingsmarch.engine.types;
 
-import java.util.List;
-
 import com.deveuge.kingsmarch.engine.Board;
-import com.deveuge.kingsmarch.engine.Square;
-import com.deveuge.kingsmarch.engine.pieces.King;
-import com.deveuge.kingsmarch.engine.pieces.Piece;
-import com.deveuge.kingsmarch.engine.util.GameHelper;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -22,68 +19,42 @@ public enum GameStatus {
     boolean endOfGame;
     
 	/**
-	 * Gets the current status of the game.
+	 * Gets the current status of the game. The position is checked once for the
+	 * check and the legal moves of the player whose turn it is to move, see
+	 * {@link MoveGenerator#hasLegalMove(BitboardPosition, int, int[])}.
 	 * 
 	 * @param board          {@link Board} Current board situation
 	 * @param opponentColour {@link Colour} Opponent player colour
 	 * @return {@link GameStatus}
 	 */
     public static GameStatus get(Board board, Colour opponentColour) {
-    	Square opponentKingSquare = board.getKingSquare(opponentColour);
-		King opponentKing = (King) opponentKingSquare.getPiece();
-		if(!opponentKing.isInCheck(board, opponentKingSquare)) {
-			return isStalemate(board, opponentColour) ? STALEMATE : ACTIVE;
-		}
-		if(isCheckmate(board, opponentColour)) {
-			return opponentColour.isWhite() ? BLACK_WIN : WHITE_WIN;
-		}
-		return ACTIVE;
-    }
-
-	/**
-	 * Checks if the player whose turn it is to move has no legal move.
-	 * 
-	 * @param board          {@link Board} Current board situation
-	 * @param opponentColour {@link Colour} Opponent player colour
-	 * @return true if it is a stalemate, false otherwise
-	 */
-    private static boolean isStalemate(Board board, Colour opponentColour) {
-    	for(Square square : board.getOccupiedSquares(opponentColour)) {
-    		Piece opponentPiece = square.getPiece();
-    		List<Square> potentialSquares = opponentPiece.getPotentialMoves(board, square);
-    		for(Square potentialSquare : potentialSquares) {
-    			if(opponentPiece.canMove(board, square, potentialSquare)) {
-    				return false;
-    			}
-    		}
+    	BitboardPosition position = board.getPosition();
+    	int colour = Bitboards.colour(opponentColour);
+    	if(MoveGenerator.hasLegalMove(position, colour, new int[MoveGenerator.MAX_MOVES])) {
+    		return ACTIVE;
+    	}
+    	if(!position.isInCheck(colour)) {
+    		return STALEMATE;
     	}
-		return true;
-	}
+		return opponentColour.isWhite() ? BLACK_WIN : WHITE_WIN;
+    }
     
 	/**
-	 * Checks if the player whose turn it is to move is in checkmate.
+	 * Gets the current status of the game from the number of legal moves of the
+	 * player whose turn it is to move, when they have already been generated.
 	 * 
-	 * @param board              {@link Board} Current board situation
-	 * @param opponentColour     {@link Colour} Opponent player colour
-	 * @return true if it is a checkmate, false otherwise
+	 * @param position       {@link BitboardPosition} Current position
+	 * @param colour         int Colour of the player whose turn it is to move
+	 * @param legalMoveCount int Number of legal moves of that player
+	 * @return {@link GameStatus}
 	 */
-    private static boolean isCheckmate(Board board, Colour opponentColour) {
-    	for(Square square : board.getOccupiedSquares(opponentColour)) {
-    		Piece opponentPiece = square.getPiece();
-    		List<Square> potentialSquares = opponentPiece.getPotentialMoves(board, square);
-    		for(Square potentialSquare : potentialSquares) {
-    			// Iterate through opponent next moves
-    			if(opponentPiece.canMove(board, square, potentialSquare)) {
-    				Board temporalBoard = GameHelper.makeTemporalMove(board, square, potentialSquare, opponentPiece);
-    	        	Square opponentKingSquare = temporalBoard.getKingSquare(opponentColour);
-    	        	King king = (King) opponentKingSquare.getPiece();
-    				// Check if after opponent next move, the king is still in check
-    				if(!king.isCheckmated(temporalBoard, opponentKingSquare)) {
-    					return false;
-    				}
-    			}
-    		}
+    public static GameStatus get(BitboardPosition position, int colour, int legalMoveCount) {
+    	if(legalMoveCount > 0) {
+    		return ACTIVE;
+    	}
+    	if(!position.isInCheck(colour)) {
+    		return STALEMATE;
     	}
-		return true;
-	}
+    	return colour == Bitboards.WHITE ? BLACK_WIN : WHITE_WIN;
+    }
 }
@@ -21,6 +21,8 @@ public class MoveResponse {
 	private boolean endOfGame;
 	private GameStatus gameStatus;
 	private String move;
+	/** Number of moves played in the game, which orders the responses */
+	private int ply;
 	
 	public MoveResponse(boolean correct) {
 		super();
@@ -34,6 +36,7 @@ public class MoveResponse {
 		this.gameFEN = game.getBoard().getFEN();
 		this.gameStatus = game.getStatus();
 		this.endOfGame = game.getStatus().isEndOfGame();
+		this.ply = game.getMovesPlayed().size();
 	}
 	
 	
@@ -20,7 +20,8 @@ public class TopicSubscriptionInterceptor implements ChannelInterceptor {
 	@Override
 	public Message<?> preSend(Message<?> message, MessageChannel channel) {
 		StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(message);
-		if (StompCommand.SUBSCRIBE.equals(headerAccessor.getCommand())) {
+		if (StompCommand.SUBSCRIBE.equals(headerAccessor.getCommand())
+				&& !WebsocketHelper.isSingleplayerChannel(headerAccessor.getDestination())) {
 			StompPrincipal principal = (StompPrincipal) headerAccessor.getUser();
 			String destination = headerAccessor.getDestination();
 			int usersInChannel = WebsocketHelper.getUsersInChannel(simpUserRegistry, destination);
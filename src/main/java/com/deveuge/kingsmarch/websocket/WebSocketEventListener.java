@@ -26,6 +26,10 @@ public class WebSocketEventListener {
 	@EventListener
 	public void handleDisconnectEvent(SessionDisconnectEvent event) {
 		StompPrincipal principal = (StompPrincipal) event.getUser();
+		if(principal.getGameId() == null) {
+			// Not in a multiplayer game, e.g. only subscribed to a single-player channel
+			return;
+		}
         
 		int usersInChannel = WebsocketHelper.getUsersInChannel(simpUserRegistry, "/topic/" + principal.getGameId());
 		if(usersInChannel == 0) {
@@ -5,11 +5,23 @@ import java.util.Set;
 import org.springframework.messaging.simp.user.SimpSubscription;
 import org.springframework.messaging.simp.user.SimpUserRegistry;
 
+import com.deveuge.kingsmarch.ai.AutoPlayer;
 import com.deveuge.kingsmarch.engine.types.Colour;
 import com.deveuge.kingsmarch.security.StompPrincipal;
 
 public class WebsocketHelper {
 
+	/**
+	 * Checks if a topic is the channel of a single-player session, where only the
+	 * computer's moves are pushed, rather than a multiplayer game.
+	 * 
+	 * @param topicDestination {@link String} Destination of the topic
+	 * @return boolean Whether the topic belongs to a single-player session
+	 */
+	public static boolean isSingleplayerChannel(String topicDestination) {
+		return topicDestination != null && topicDestination.startsWith("/topic/" + AutoPlayer.CHANNEL_PREFIX);
+	}
+
 	public static int getUsersInChannel(SimpUserRegistry simpUserRegistry, String topicDestination) {
 		Set<SimpSubscription> matches = simpUserRegistry
 				.findSubscriptions(s -> s.getDestination().equals(topicDestination));
@@ -12,6 +12,9 @@ const delay = ms => new Promise(res => setTimeout(res, ms));
 
 const kingsmarch = {
 	board: undefined,
+	stompClient: undefined,
+	ply: 0, // Moves played in the position shown, as responses may arrive out of order
+	computerTurn: false, // Whether the computer's move is awaited
 	config: {
 		pieceTheme: 'img/pieces/staunty/{piece}.svg',
 		position: 'start',
@@ -26,6 +29,31 @@ const kingsmarch = {
 	init() {
 		this.board = Chessboard('board', this.config);
 		kingsmarch.setPosition($("#singleplayerFEN").val());
+		kingsmarch.ply = parseInt($("#singleplayerPly").val());
+		kingsmarch.computerTurn = $("#singleplayerFEN").val().split(' ')[1] === 'b';
+		kingsmarch.connect();
+	},
+	connect() {
+		this.stompClient = Stomp.over(new SockJS('/ws'));
+		this.stompClient.connect({}, function() {
+			// The computer's moves are pushed to the channel of the session
+			kingsmarch.stompClient.subscribe('/topic/' + $("#channel").val(), function(payload) {
+				onOpponentMove(JSON.parse(payload.body));
+			});
+			// Also a move pushed while not connected
+			if(kingsmarch.computerTurn) {
+				getOpponentMove();
+			}
+		}, function() {
+			// Until connected again, the computer's moves are asked for
+			if(kingsmarch.computerTurn) {
+				getOpponentMove();
+			}
+			setTimeout(() => kingsmarch.connect(), 5000);
+		});
+	},
+	isConnected() {
+		return this.stompClient !== undefined && this.stompClient.connected;
 	},
 	freeze(message) {
 		$("#board").attr('data-content', message);
@@ -45,6 +73,17 @@ const kingsmarch = {
 	}
 };
 
+$('#difficulty').on('change', function() {
+	$.ajax({
+		type: 'POST',
+		url: 'sp/difficulty',
+		data: { difficulty: $(this).val() },
+		success: function(difficulty) {
+			showAlert("Difficulty: " + $('#difficulty option[value=' + difficulty + ']').text());
+		}
+	});
+});
+
 function onDragStart (source, piece, position, orientation) {
   if ((orientation === 'white' && piece.search(/^w/) === -1) ||
       (orientation === 'black' && piece.search(/^b/) === -1)) {
@@ -63,9 +102,7 @@ function onDrop(source, target, piece, newPos, oldPos, orientation) {
 			if(data.responseType == 'OK') {
 				if(!data.promotion) {
 					makeMove(data);
-					if(data.responseType == 'OK' && !data.endOfGame) {
-						getOpponentMove();
-					}
+					awaitOpponentMove(data);
 				} else {
 					let promotionValue = 'q';
 					let promise = new Promise(function(resolve, reject) {
@@ -86,10 +123,7 @@ function onDrop(source, target, piece, newPos, oldPos, orientation) {
 							success: function(data) {
 								makeMove(data);
 								hidePromotionModal();
-													
-								if(data.responseType == 'OK' && !data.endOfGame) {
-									getOpponentMove();
-								}
+								awaitOpponentMove(data);
 							}
 						});
 					});
@@ -103,9 +137,16 @@ function onDrop(source, target, piece, newPos, oldPos, orientation) {
 }
 
 const makeMove = async (data) => {
+	if(data.ply < kingsmarch.ply) {
+		return; // A later move is already shown
+	}
+	kingsmarch.ply = data.ply;
+	kingsmarch.computerTurn = data.gameFEN.split(' ')[1] === 'b' && !data.endOfGame;
 	if(data.refresh) {
 		await delay(100); // Avoid problems refreshing positions
-		kingsmarch.setPosition(data.gameFEN);
+		if(data.ply === kingsmarch.ply) {
+			kingsmarch.setPosition(data.gameFEN);
+		}
 	}
 	data.capture 
 		? kingsmarch.playCaptureSound()
@@ -122,14 +163,32 @@ const makeMove = async (data) => {
 	}
 }
 
-const getOpponentMove = async () => {
-	await delay(100); // Avoid problems refreshing positions
+const awaitOpponentMove = (data) => {
+	// The computer's move is pushed, unless the page is not connected
+	if(data.responseType == 'OK' && !data.endOfGame && !kingsmarch.isConnected()) {
+		getOpponentMove();
+	}
+}
+
+const getOpponentMove = () => {
 	$.ajax({
 		type: 'POST',
 		url: 'sp/automove',
-		success: function(data) {
-			kingsmarch.board.move(data.move);
-			makeMove(data);
-		}
+		success: onOpponentMove
 	});
+}
+
+const onOpponentMove = async (data) => {
+	await delay(100); // Avoid problems refreshing positions
+	// The same move may be both pushed and returned by sp/automove
+	if(data.responseType != 'OK' || data.ply <= kingsmarch.ply) {
+		return;
+	}
+	if(data.ply > kingsmarch.ply + 1) {
+		// Pushed before the player's own move was shown: show the whole position
+		data.refresh = true;
+	} else {
+		kingsmarch.board.move(data.move);
+	}
+	makeMove(data);
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.engine.bitboard.Attacks;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+
+@SpringBootTest
+class AttacksTest {
+
+	private static final int[][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+	private static final int[][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+
+	@Test
+	void leaperAttacks() {
+		// Knight on a1 reaches b3 and c2
+		assertEquals(Bitboards.bit(17) | Bitboards.bit(10), Attacks.knightAttacks(0));
+		assertEquals(8, Bitboards.count(Attacks.knightAttacks(Bitboards.square(3, 3))));
+		// King on h8 reaches g8, g7 and h7
+		assertEquals(3, Bitboards.count(Attacks.kingAttacks(63)));
+		// White pawn on e2 attacks d3 and f3, black pawn on a7 attacks b6
+		assertEquals(Bitboards.bit(19) | Bitboards.bit(21), Attacks.pawnAttacks(Bitboards.WHITE, 12));
+		assertEquals(Bitboards.bit(41), Attacks.pawnAttacks(Bitboards.BLACK, 48));
+	}
+
+	@Test
+	void slidingAttacksMatchRayWalk() {
+		Random random = new Random(1);
+		for (int i = 0; i < 2000; i++) {
+			long occupied = random.nextLong() & random.nextLong();
+			int square = random.nextInt(64);
+			assertEquals(walk(square, occupied, ROOK_DIRECTIONS), Attacks.rookAttacks(square, occupied));
+			assertEquals(walk(square, occupied, BISHOP_DIRECTIONS), Attacks.bishopAttacks(square, occupied));
+			assertEquals(walk(square, occupied, ROOK_DIRECTIONS) | walk(square, occupied, BISHOP_DIRECTIONS),
+					Attacks.queenAttacks(square, occupied));
+		}
+	}
+
+	private long walk(int square, long occupied, int[][] directions) {
+		long attacks = 0L;
+		for (int[] direction : directions) {
+			for (int row = Bitboards.row(square) + direction[0], col = Bitboards.col(square) + direction[1];
+					row >= 0 && row < 8 && col >= 0 && col < 8; row += direction[0], col += direction[1]) {
+				long bit = Bitboards.bit(Bitboards.square(row, col));
+				attacks |= bit;
+				if ((occupied & bit) != 0) {
+					break;
+				}
+			}
+		}
+		return attacks;
+	}
+}
@@ -0,0 +1,162 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.AutoPlayer;
+import com.deveuge.kingsmarch.ai.BestMoveCache;
+import com.deveuge.kingsmarch.ai.Ponderer;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.ai.SearchMetrics;
+import com.deveuge.kingsmarch.ai.TranspositionTable;
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.Move;
+import com.deveuge.kingsmarch.engine.types.Colour;
+import com.deveuge.kingsmarch.engine.util.Position;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest
+class AutoPlayerTest {
+
+	@Autowired
+	ThreadPoolExecutor searchHelpers;
+
+	@Autowired
+	ThreadPoolExecutor engineExecutor;
+
+	@Autowired
+	SearchMetrics searchMetrics;
+
+	@Autowired
+	ThreadPoolExecutor ponderExecutor;
+
+	@Autowired
+	Ponderer ponderer;
+
+	@Test
+	void playsOnTheEngineExecutor() {
+		AutoPlayer player = new AutoPlayer(new TranspositionTable(1), searchHelpers, engineExecutor, searchMetrics, ponderer, new BestMoveCache(100));
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+		long start = System.currentTimeMillis();
+		CompletableFuture<Move> future = player.play(game, SearchLimits.depth(4));
+		// A second request while searching gets the same move
+		assertSame(future, player.play(game, SearchLimits.depth(4)));
+
+		Move move = future.join();
+		log.info("Move played by the engine executor in {} ms", System.currentTimeMillis() - start);
+		assertEquals("b7-b1", move.getAlgebraicNotation());
+		assertEquals("b7-b1", game.getLastMove().getAlgebraicNotation());
+		assertEquals(Colour.WHITE, game.getCurrentTurn().getColour());
+		assertTrue(player.getStatistics().getNodes() > 0);
+
+		// Nothing to play on the player's turn
+		assertNull(player.play(game, SearchLimits.depth(4)).join());
+	}
+
+	@Test
+	void cancelledMovesAreNotPlayed() {
+		AutoPlayer player = new AutoPlayer(new TranspositionTable(1), searchHelpers, engineExecutor, searchMetrics, ponderer, new BestMoveCache(100));
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.MIDDLEGAME));
+		String fen = game.getBoard().getFEN();
+		CompletableFuture<Move> future = player.play(game, SearchLimits.depth(64));
+		player.cancel();
+
+		assertThrows(CancellationException.class, future::join);
+		assertEquals(fen, game.getBoard().getFEN());
+		assertTrue(game.getMovesPlayed().isEmpty());
+
+		// The engine is free again for the next search
+		assertEquals(Colour.BLACK, player.play(game, SearchLimits.depth(2)).join().getPieceMoved().getColour());
+	}
+
+	@Test
+	void cachedMovesArePlayedAtOnce() {
+		BestMoveCache cache = new BestMoveCache(100);
+		SearchLimits limits = SearchLimits.depth(4);
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+		new AutoPlayer(new TranspositionTable(1), searchHelpers, engineExecutor, searchMetrics, ponderer, cache)
+				.play(game, limits).join();
+		assertEquals(1, cache.getSize());
+
+		// Another game reaches the same position
+		Game other = new Game();
+		other.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+		CompletableFuture<Move> future = new AutoPlayer(new TranspositionTable(1), searchHelpers, engineExecutor,
+				searchMetrics, ponderer, cache).play(other, limits);
+		assertTrue(future.isDone());
+		assertEquals("b7-b1", future.join().getAlgebraicNotation());
+		assertEquals(0.5, cache.getHitRate());
+	}
+
+	@Test
+	void pondersOnTheExpectedReply() throws InterruptedException {
+		AutoPlayer player = new AutoPlayer(new TranspositionTable(1), searchHelpers, engineExecutor, searchMetrics, ponderer, new BestMoveCache(100));
+		Game game = new Game();
+		game.setBoard(new Board("4k3/8/3p4/8/8/3P4/4P3/4K3 b - - 0 1"));
+		SearchLimits limits = SearchLimits.depth(5);
+		// The games of the other tests may still be pondering
+		for (int i = 0; i < 100 && ponderExecutor.getActiveCount() > 0; i++) {
+			Thread.sleep(50);
+		}
+		player.play(game, limits).join();
+		String reply = player.getExpectedReply();
+		assertNotNull(reply);
+		for (int i = 0; i < 100 && ponderer.getRunning() > 0; i++) {
+			Thread.sleep(50);
+		}
+
+		// Ponder hit: the move is played at once, on the thread of the request
+		game.move(game.getPlayer(Colour.WHITE), new Position(reply.substring(0, 2)), new Position(reply.substring(3, 5)));
+		CompletableFuture<Move> future = player.play(game, limits);
+		assertTrue(future.isDone());
+		assertEquals(Colour.WHITE, game.getCurrentTurn().getColour());
+		log.info("Ponder hit on {}, {} played at once", reply, future.join().getAlgebraicNotation());
+
+		// Cancelling stops pondering
+		assertNotNull(player.getExpectedReply());
+		player.cancel();
+		assertNull(player.getExpectedReply());
+	}
+
+	@Test
+	void pondersWithASingleEngineThread() throws InterruptedException {
+		ThreadPoolExecutor engine = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+		ThreadPoolExecutor ponderPool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+		try {
+			TranspositionTable table = new TranspositionTable(1);
+			AutoPlayer player = new AutoPlayer(table, searchHelpers, engine, searchMetrics,
+					new Ponderer(true, table, ponderPool, engine), new BestMoveCache(100));
+			Game game = new Game();
+			game.setBoard(new Board("4k3/8/3p4/8/8/3P4/4P3/4K3 b - - 0 1"));
+			player.play(game, SearchLimits.depth(3)).join();
+
+			// The engine thread that played the move does not keep pondering off
+			assertNotNull(player.getExpectedReply());
+			player.cancel();
+		} finally {
+			engine.shutdown();
+			ponderPool.shutdown();
+		}
+	}
+}
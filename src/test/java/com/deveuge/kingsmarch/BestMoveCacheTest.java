@@ -0,0 +1,96 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.BestMoveCache;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Fen;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest
+class BestMoveCacheTest {
+
+	@Test
+	void cachesByPositionAndLimits() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		BestMoveCache cache = new BestMoveCache(100).bindTo(registry);
+		BitboardPosition position = position("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+		SearchLimits limits = SearchLimits.builder().maxDepth(4).maxNodes(60_000).build();
+		int bishopB5 = Moves.of(5, 33, Moves.QUIET);
+		int bishopC4 = Moves.of(5, 26, Moves.QUIET);
+
+		assertEquals(Moves.NONE, cache.get(position, limits));
+		cache.put(position.getKey(), limits, bishopB5, 3, 4);
+		assertEquals(bishopB5, cache.get(position, limits));
+		// Other levels of play keep their own moves
+		assertEquals(Moves.NONE, cache.get(position, SearchLimits.depth(6)));
+
+		// A deeper search replaces a shallower one, but not the other way round
+		cache.put(position.getKey(), limits, bishopC4, 2, 3);
+		assertEquals(bishopB5, cache.get(position, limits));
+		cache.put(position.getKey(), limits, bishopC4, 2, 5);
+		assertEquals(bishopC4, cache.get(position, limits));
+
+		// A move that is not legal in the position is not played, whatever its key
+		BitboardPosition other = position("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+		cache.put(other.getKey(), limits, bishopB5, 0, 4);
+		assertEquals(Moves.NONE, cache.get(other, limits));
+
+		assertEquals(2, cache.getSize());
+		assertEquals(4.0 / 6, cache.getHitRate(), 1e-9);
+		assertEquals(4, registry.get("cache.gets").tag("cache", "kingsmarch.best-move").tag("result", "hit")
+				.functionCounter().count());
+	}
+
+	@Test
+	void onlyCompleteSearchesAreCached() {
+		BestMoveCache cache = new BestMoveCache(100);
+		BitboardPosition position = position("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+		SearchLimits limits = SearchLimits.builder().maxDepth(6).maxTime(1000).build();
+		int bishopB5 = Moves.of(5, 33, Moves.QUIET);
+
+		// Out of time after depth 5
+		cache.put(position.getKey(), limits, bishopB5, 3, 5);
+		assertEquals(Moves.NONE, cache.get(position, limits));
+		assertEquals(0, cache.getSize());
+
+		// The moves of the levels with noise are not shared
+		SearchLimits noisy = limits.toBuilder().evalNoise(10).build();
+		cache.put(position.getKey(), noisy, bishopB5, 3, 6);
+		assertEquals(Moves.NONE, cache.get(position, noisy));
+		assertEquals(0, cache.getSize());
+
+		cache.put(position.getKey(), limits, bishopB5, 3, 6);
+		assertEquals(bishopB5, cache.get(position, limits));
+
+		// A search ends early on a mate
+		BitboardPosition mate = position(TestPositions.BACK_RANK_MATE);
+		int rookB1 = Moves.of(49, 1, Moves.QUIET);
+		cache.put(mate.getKey(), limits, rookB1, 100_095, 2);
+		assertEquals(rookB1, cache.get(mate, limits));
+	}
+
+	@Test
+	void boundedSize() {
+		BestMoveCache cache = new BestMoveCache(10);
+		SearchLimits limits = SearchLimits.depth(4);
+		for (long key = 1; key <= 1000; key++) {
+			cache.put(key, limits, Moves.of(12, 28, Moves.DOUBLE_PAWN_PUSH), 0, 4);
+		}
+		assertTrue(cache.getSize() <= 10);
+	}
+
+	private static BitboardPosition position(String fen) {
+		BitboardPosition position = new BitboardPosition();
+		Fen.parse(fen, position);
+		return position;
+	}
+}
@@ -0,0 +1,125 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+import com.deveuge.kingsmarch.engine.bitboard.PositionState;
+import com.deveuge.kingsmarch.engine.pieces.King;
+import com.deveuge.kingsmarch.engine.pieces.Pawn;
+import com.deveuge.kingsmarch.engine.pieces.Piece;
+import com.deveuge.kingsmarch.engine.pieces.Queen;
+import com.deveuge.kingsmarch.engine.pieces.Rook;
+import com.deveuge.kingsmarch.engine.types.Colour;
+
+@SpringBootTest
+class BitboardPositionTest {
+
+	@Test
+	void boardKeepsBitboardsInSync() {
+		Board board = new Board();
+		BitboardPosition position = board.getPosition();
+		assertEquals(32, Bitboards.count(position.getOccupied()));
+		assertEquals(4, position.getKingSquare(Bitboards.WHITE));
+		assertEquals(60, position.getKingSquare(Bitboards.BLACK));
+
+		board.getSquare(1, 4).setPiece(null);
+		board.getSquare(3, 4).setPiece(new Pawn());
+		assertEquals(Bitboards.piece(Bitboards.WHITE, Bitboards.PAWN), position.getPiece(28));
+		assertEquals(Bitboards.NO_PIECE, position.getPiece(12));
+		assertEquals(16, board.getOccupiedSquares(board.getSquare(0, 0).getPiece().getColour()).size());
+	}
+
+	@Test
+	void makeAndUnmakeRestoreThePosition() {
+		Board board = new Board("r3k2r/8/8/8/8/8/8/R3K2R");
+		BitboardPosition position = board.getPosition();
+		position.setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
+		long[] before = snapshot(position);
+
+		// Castling written as the king moving onto its rook
+		int castling = board.makeMove(board.getSquare(0, 4), board.getSquare(0, 7));
+		assertEquals(Moves.KING_CASTLE, Moves.flags(castling));
+		assertTrue(board.getSquare(0, 6).getPiece() instanceof King);
+		assertTrue(board.getSquare(0, 5).getPiece() instanceof Rook);
+		assertEquals(BitboardPosition.BLACK_KINGSIDE | BitboardPosition.BLACK_QUEENSIDE, position.getCastlingRights());
+
+		int queenside = board.makeMove(board.getSquare(7, 4), board.getSquare(7, 2));
+		assertEquals(Moves.QUEEN_CASTLE, Moves.flags(queenside));
+		assertEquals(0, position.getCastlingRights());
+
+		board.unmakeMove(queenside);
+		board.unmakeMove(castling);
+		assertArrayEquals(before, snapshot(position));
+		assertTrue(board.getSquare(0, 7).getPiece() instanceof Rook);
+	}
+
+	@Test
+	void makeAndUnmakeEnPassantAndPromotion() {
+		Board board = new Board("4k3/1P6/8/8/3p4/8/4P3/4K3");
+		BitboardPosition position = board.getPosition();
+		long[] before = snapshot(position);
+
+		int doublePush = board.makeMove(board.getSquare(1, 4), board.getSquare(3, 4));
+		assertEquals(20, position.getEnPassantSquare());
+		int enPassant = board.makeMove(board.getSquare(3, 3), board.getSquare(2, 4));
+		assertTrue(Moves.isEnPassant(enPassant));
+		assertEquals(Bitboards.NO_PIECE, position.getPiece(28));
+		assertEquals(null, board.getSquare(3, 4).getPiece());
+
+		int promotion = board.makeMove(board.getSquare(6, 1), board.getSquare(7, 1));
+		assertTrue(board.getSquare(7, 1).getPiece() instanceof Queen);
+		assertEquals(Bitboards.piece(Bitboards.WHITE, Bitboards.QUEEN), position.getPiece(57));
+
+		board.unmakeMove(promotion);
+		board.unmakeMove(enPassant);
+		board.unmakeMove(doublePush);
+		assertArrayEquals(before, snapshot(position));
+		assertTrue(board.getSquare(6, 1).getPiece() instanceof Pawn);
+		assertTrue(board.getSquare(1, 4).getPiece() instanceof Pawn);
+	}
+
+	@Test
+	void stateIsKeptByThePositionAndPiecesAreShared() {
+		PositionState state = new PositionState(Bitboards.BLACK, BitboardPosition.WHITE_QUEENSIDE, 20, 37, 112);
+		assertEquals(state, PositionState.unpack(state.pack()));
+
+		Board board = new Board("4k3/8/8/8/8/8/4P3/4K3");
+		BitboardPosition position = board.getPosition();
+		position.setState(state);
+		assertEquals(state, position.getState());
+		assertEquals(position.computeKey(), position.getKey());
+
+		position.setState(PositionState.INITIAL);
+		int doublePush = board.makeMove(board.getSquare(1, 4), board.getSquare(3, 4));
+		assertEquals(20, position.getState().enPassantSquare());
+		board.unmakeMove(doublePush);
+		assertEquals(PositionState.INITIAL, position.getState());
+
+		assertSame(Pawn.WHITE, board.getSquare(1, 4).getPiece());
+		assertSame(Pawn.BLACK, Piece.createFromAlgebraicNotation("p"));
+		assertSame(Queen.BLACK, Piece.createPromotionPiece("q", Colour.BLACK));
+		assertSame(King.WHITE, new Board(board).getSquare(0, 4).getPiece());
+	}
+
+	private long[] snapshot(BitboardPosition position) {
+		long[] snapshot = new long[Bitboards.PIECE_CODES + 5];
+		for (int piece = 0; piece < Bitboards.PIECE_CODES; piece++) {
+			snapshot[piece] = position.getPieces(piece);
+		}
+		snapshot[12] = position.getCastlingRights();
+		snapshot[13] = position.getEnPassantSquare();
+		snapshot[14] = position.getHalfmoveClock();
+		snapshot[15] = position.getFullmoveNumber();
+		snapshot[16] = position.getSideToMove();
+		return snapshot;
+	}
+}
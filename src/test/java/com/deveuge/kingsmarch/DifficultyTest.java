@@ -0,0 +1,80 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.Difficulty;
+import com.deveuge.kingsmarch.ai.Search;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest
+class DifficultyTest {
+
+	private static final SearchLimits CONFIGURED = SearchLimits.builder().maxTime(2000).threads(4).build();
+
+	@Test
+	void levelsWithinTheConfiguredLimits() {
+		SearchLimits beginner = Difficulty.BEGINNER.limits(CONFIGURED);
+		assertEquals(1, beginner.getThreads());
+		assertTrue(beginner.getEvalNoise() > 0);
+		assertTrue(beginner.getMaxNodes() > 0);
+
+		SearchLimits expert = Difficulty.EXPERT.limits(CONFIGURED);
+		assertEquals(4, expert.getThreads());
+		assertEquals(0, expert.getEvalNoise());
+		assertEquals(2000, expert.getMaxTime());
+		assertEquals(SearchLimits.MAX_DEPTH, expert.getDepth());
+		assertEquals(0, expert.getMaxNodes());
+
+		// The configured depth and nodes cap every level
+		SearchLimits capped = SearchLimits.builder().maxDepth(3).maxNodes(5_000).build();
+		assertEquals(2, Difficulty.BEGINNER.limits(capped).getDepth());
+		assertEquals(2_000, Difficulty.BEGINNER.limits(capped).getMaxNodes());
+		assertEquals(3, Difficulty.HARD.limits(capped).getDepth());
+		assertEquals(5_000, Difficulty.HARD.limits(capped).getMaxNodes());
+		assertEquals(5_000, Difficulty.EXPERT.limits(capped).getMaxNodes());
+		assertEquals(Difficulty.EXPERT.getMaxTime(), Difficulty.EXPERT.limits(capped).getMaxTime());
+	}
+
+	@Test
+	void weakerLevelsAreCheaper() {
+		long beginnerNodes = nodes(Difficulty.BEGINNER);
+		long mediumNodes = nodes(Difficulty.MEDIUM);
+		long hardNodes = nodes(Difficulty.HARD);
+		log.info("Nodes per move: beginner {}, medium {}, hard {}", beginnerNodes, mediumNodes, hardNodes);
+		assertTrue(beginnerNodes <= Difficulty.BEGINNER.getMaxNodes());
+		assertTrue(beginnerNodes * 10 < hardNodes);
+		assertTrue(mediumNodes < hardNodes);
+	}
+
+	@Test
+	void noiseDoesNotGiveAwayMaterial() {
+		Set<String> moves = new HashSet<>();
+		for (int i = 0; i < 10; i++) {
+			Game game = new Game();
+			// The black rook takes the undefended queen
+			game.setBoard(new Board("k7/1r6/8/8/8/8/1Q3PPP/6K1 b - - 0 1"));
+			moves.add(new Search(game, Difficulty.BEGINNER.limits(CONFIGURED)).run().getAlgebraicNotation());
+		}
+		assertEquals(Set.of("b7-b2"), moves);
+	}
+
+	private long nodes(Difficulty difficulty) {
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.MIDDLEGAME));
+		Search search = new Search(game, difficulty.limits(CONFIGURED));
+		search.run();
+		return search.getNodes();
+	}
+}
@@ -0,0 +1,75 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.Fen;
+import com.deveuge.kingsmarch.engine.types.Colour;
+import com.deveuge.kingsmarch.engine.util.Position;
+
+@SpringBootTest
+class FenTest {
+
+	@Test
+	void completeRecordsRoundTrip() {
+		assertEquals(Fen.INITIAL, new Board().getFEN());
+
+		String[] records = {
+				Fen.INITIAL,
+				"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+				"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+				"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b Kq - 12 57" };
+		for (String fen : records) {
+			Board board = new Board(fen);
+			assertEquals(fen, board.getFEN());
+			assertEquals(board.getPosition().computeKey(), board.getZobristKey());
+		}
+
+		BitboardPosition position = new Board(records[2]).getPosition();
+		assertEquals(Bitboards.square(5, 5), position.getEnPassantSquare());
+		assertEquals(BitboardPosition.ALL_CASTLING_RIGHTS, position.getCastlingRights());
+		assertEquals(3, position.getFullmoveNumber());
+	}
+
+	@Test
+	void placementOnlyRecords() {
+		Board board = new Board(new StringBuilder("4k3/8/8/8/8/8/8/4K2R"));
+		assertEquals("4k3/8/8/8/8/8/8/4K2R w - - 0 1", board.getFEN());
+		assertEquals(0, board.getPosition().getCastlingRights());
+
+		for (String fen : new String[] { "", "4k3/8/8/8/8/8/8", "4k3/9/8/8/8/8/8/4K3", "4k3/8/8/8/8/8/8/4K3 x",
+				"4k3/8/8/8/8/8/8/4K3 w KX", "4k3/8/8/8/8/8/8/4K3 w - e4", "4k3/8/8/8/8/8/8/4K3 w - - 0 1 2" }) {
+			assertThrows(IllegalArgumentException.class, () -> new Board(fen), fen);
+		}
+	}
+
+	@Test
+	void recordIsCachedUntilThePositionChanges() {
+		Game game = new Game();
+		String initial = game.getBoard().getFEN();
+		assertSame(initial, game.getBoard().getFEN());
+
+		assertTrue(game.move(game.getCurrentTurn(), new Position("e2"), new Position("e4")));
+		String afterMove = game.getBoard().getFEN();
+		assertNotSame(initial, afterMove);
+		assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", afterMove);
+		assertSame(afterMove, game.getBoard().getFEN());
+
+		assertTrue(game.move(game.getCurrentTurn(), new Position("g8"), new Position("f6")));
+		assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 1 2", game.getBoard().getFEN());
+
+		// The turn follows the side to move of a board read from a FEN record
+		game.setBoard(new Board("4k3/8/8/8/8/8/8/4K3 b - - 0 40"));
+		assertEquals(Colour.BLACK, game.getCurrentTurn().getColour());
+	}
+}
@@ -0,0 +1,184 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.GameAI;
+import com.deveuge.kingsmarch.ai.Search;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.Move;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+import com.deveuge.kingsmarch.engine.types.Colour;
+import com.deveuge.kingsmarch.engine.util.Position;
+
+@SpringBootTest
+class GameAITest {
+
+	@Test
+	void searchesTheRepliesOfTheOpponent() {
+		// Mate in one for black
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+		assertEquals("b7-b1", GameAI.getNextMove(game).getAlgebraicNotation());
+
+		// Taking the rook with the queen loses the queen to the pawn
+		game.setBoard(new Board("k7/8/2p5/3r4/8/8/8/3QK3 w - - 0 1"));
+		assertNotEquals("d1-d5", GameAI.getNextMove(game).getAlgebraicNotation());
+
+		// Same position with the colours reversed, the search works for either side
+		game.setBoard(new Board("3qk3/8/8/8/3R4/2P5/8/K7 b - - 0 1"));
+		assertEquals(Colour.BLACK, game.getCurrentTurn().getColour());
+		assertNotEquals("d8-d4", GameAI.getNextMove(game).getAlgebraicNotation());
+	}
+
+	@Test
+	void iterativeDeepeningWithinLimits() {
+		Game game = new Game();
+		game.setBoard(new Board("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+
+		Search search = new Search(game, SearchLimits.depth(3));
+		assertNotNull(search.run());
+		assertEquals(3, search.getCompletedDepth());
+
+		// The node limit stops the search, which keeps the move of the last completed depth
+		search = new Search(game, SearchLimits.builder().maxNodes(5_000).build());
+		assertNotNull(search.run());
+		assertTrue(search.isStopped());
+		assertTrue(search.getNodes() <= 5_000);
+		assertTrue(search.getCompletedDepth() < SearchLimits.MAX_DEPTH);
+
+		search = new Search(game, SearchLimits.builder().maxTime(200).build());
+		long start = System.currentTimeMillis();
+		assertNotNull(search.run());
+		assertTrue(System.currentTimeMillis() - start < 1_000);
+
+		// Stopped before starting, a legal move is still returned
+		search = new Search(game, SearchLimits.depth(10));
+		search.stop();
+		Move move = search.run();
+		assertNotNull(move);
+		assertEquals(0, search.getCompletedDepth());
+	}
+
+	@Test
+	void quiescenceSearchSeesTheRecapture() {
+		// At depth 1 taking the rook looks good until the pawn takes the queen back
+		Game game = new Game();
+		game.setBoard(new Board("k7/8/2p5/3r4/8/8/8/3QK3 w - - 0 1"));
+		Search search = new Search(game, SearchLimits.depth(1));
+		assertNotEquals("d1-d5", search.run().getAlgebraicNotation());
+		assertTrue(search.getQuiescenceNodes() > 0);
+
+		// An undefended rook is taken
+		game.setBoard(new Board("k7/8/8/3r4/8/8/8/3QK3 w - - 0 1"));
+		assertEquals("d1-d5", new Search(game, SearchLimits.depth(1)).run().getAlgebraicNotation());
+	}
+
+	@Test
+	void deltaPruningKeepsTheQuiescenceScore() {
+		String[] fens = { TestPositions.MIDDLEGAME,
+				"r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 0 1",
+				"r2q1rk1/pp2bppp/2n1bn2/3p4/3N4/2N1B3/PPP1BPPP/R2Q1RK1 b - - 0 1",
+				"2r3k1/pp3ppp/2n1b3/q2pP3/3Q4/P1P2N2/5PPP/R3KB1R b KQ - 0 1" };
+		Game game = new Game();
+		long prunedNodes = 0;
+		long fullNodes = 0;
+		for (String fen : fens) {
+			game.setBoard(new Board(fen));
+			for (int depth = 1; depth <= 2; depth++) {
+				Search pruned = new Search(game, SearchLimits.builder().maxDepth(depth).build());
+				Search full = new Search(game, SearchLimits.builder().maxDepth(depth).deltaPruning(false).build());
+				pruned.run();
+				full.run();
+				assertEquals(full.getScore(), pruned.getScore(), fen + " at depth " + depth);
+				prunedNodes += pruned.getQuiescenceNodes();
+				fullNodes += full.getQuiescenceNodes();
+			}
+		}
+		assertTrue(prunedNodes <= fullNodes);
+	}
+
+	@Test
+	void principalVariation() {
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+		Search search = new Search(game, SearchLimits.depth(3));
+		search.run();
+		assertEquals(List.of("b7-b1"), search.getPrincipalVariation());
+
+		// The line starts with the move played and every move of it is legal in turn
+		game.setBoard(new Board(TestPositions.MIDDLEGAME));
+		search = new Search(game, SearchLimits.depth(5));
+		Move move = search.run();
+		List<String> line = search.getPrincipalVariation();
+		assertTrue(line.size() >= 2, line.toString());
+		BitboardPosition position = new BitboardPosition(game.getBoard().getPosition());
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (String notation : line) {
+			int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+			int played = Moves.NONE;
+			for (int i = 0; i < count; i++) {
+				if (Moves.toNotation(moves[i]).equals(notation)) {
+					played = moves[i];
+				}
+			}
+			assertNotEquals(Moves.NONE, played, notation);
+			if (notation == line.get(0)) {
+				// Castling is given to the game as the king moving onto the rook
+				assertEquals(move.getAlgebraicNotation(), game.getBoard().toMove(played).getAlgebraicNotation());
+			}
+			position.makeMove(played);
+		}
+	}
+
+	@Test
+	void selectiveSearch() {
+		Game game = new Game();
+		game.setBoard(new Board("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 0 1"));
+		SearchLimits fullWidth = SearchLimits.builder().maxDepth(6).nullMove(false).lateMoveReductions(false)
+				.futility(false).build();
+		Search full = new Search(game, fullWidth);
+		full.run();
+		assertEquals(0, full.getNullMoveCutoffs() + full.getLateMoveReductions() + full.getFutilityPrunes()
+				+ full.getReverseFutilityPrunes());
+
+		Search selective = new Search(game, SearchLimits.depth(6));
+		selective.run();
+		assertTrue(selective.getNullMoveCutoffs() > 0);
+		assertTrue(selective.getLateMoveReductions() > 0);
+		assertTrue(selective.getFutilityPrunes() > 0);
+		assertTrue(selective.getReverseFutilityPrunes() > 0);
+		assertTrue(selective.getNodes() * 2 < full.getNodes());
+
+		// Tactics are still found
+		game.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+		assertEquals("b7-b1", new Search(game, SearchLimits.depth(6)).run().getAlgebraicNotation());
+
+		// No null move in pawn endings, where passing could be the best move
+		game.setBoard(new Board("8/8/1p6/1P1k4/3P4/3K4/8/8 b - - 0 1"));
+		Search ending = new Search(game, SearchLimits.depth(8));
+		assertNotNull(ending.run());
+		assertEquals(0, ending.getNullMoveCutoffs());
+	}
+
+	@Test
+	void repliesFromTheOpeningBook() {
+		Game game = new Game();
+		assertTrue(game.move(game.getCurrentTurn(), new Position("e2"), new Position("e4")));
+		Move move = GameAI.getNextMove(game);
+		assertTrue(Set.of("c7-c5", "c7-c6", "d7-d5", "d7-d6", "e7-e5", "e7-e6", "f7-f6", "g7-g6", "g8-f6")
+				.contains(move.getAlgebraicNotation()), move.getAlgebraicNotation());
+	}
+}
@@ -0,0 +1,178 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.Move;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+import com.deveuge.kingsmarch.engine.types.Colour;
+import com.deveuge.kingsmarch.engine.types.GameStatus;
+import com.deveuge.kingsmarch.engine.util.Position;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest
+class MoveGeneratorTest {
+
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R";
+
+	private int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+	@Test
+	void legalMoveCounts() {
+		assertEquals(20, MoveGenerator.generateLegal(new Board().getPosition(), Bitboards.WHITE, moves));
+
+		BitboardPosition kiwipete = new Board(KIWIPETE).getPosition();
+		kiwipete.setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
+		assertEquals(48, MoveGenerator.generateLegal(kiwipete, Bitboards.WHITE, moves));
+		assertEquals(43, MoveGenerator.generateLegal(kiwipete, Bitboards.BLACK, moves));
+
+		assertEquals(14, MoveGenerator.generateLegal(new Board("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8").getPosition(),
+				Bitboards.WHITE, moves));
+	}
+
+	@Test
+	void capturesAndPromotionsOnly() {
+		BitboardPosition kiwipete = new Board(KIWIPETE).getPosition();
+		kiwipete.setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
+		assertEquals(8, MoveGenerator.generateLegalCaptures(kiwipete, Bitboards.WHITE, moves));
+
+		// The same moves as the tactical legal moves, in positions with promotions, en passant and a check
+		for (String fen : new String[] { KIWIPETE, "4k3/1P6/8/3pP3/8/8/8/4K3 w - d6 0 1",
+				"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "4k3/8/8/8/8/8/3q4/4K3 w - - 0 1" }) {
+			BitboardPosition position = new Board(fen).getPosition();
+			int count = MoveGenerator.generateLegal(position, Bitboards.WHITE, moves);
+			int tactical = 0;
+			for (int i = 0; i < count; i++) {
+				if (Moves.isCapture(moves[i]) || Moves.isPromotion(moves[i])) {
+					tactical++;
+				}
+			}
+			int captures = MoveGenerator.generateLegalCaptures(position, Bitboards.WHITE, moves);
+			assertEquals(tactical, captures, fen);
+			for (int i = 0; i < captures; i++) {
+				assertTrue(Moves.isCapture(moves[i]) || Moves.isPromotion(moves[i]), fen);
+			}
+		}
+	}
+
+	@Test
+	void specialMoves() {
+		// En passant only for the side that did not push the pawn, and all promotions
+		Board board = new Board("4k3/1P6/8/3pP3/8/8/8/4K3");
+		board.getPosition().setEnPassantSquare(Bitboards.square(5, 3));
+		Set<String> white = notations(board.getPosition(), Bitboards.WHITE);
+		assertTrue(white.contains("e5-d6"));
+		assertTrue(white.contains("b7-b8"));
+		assertEquals(4, countPromotions(board.getPosition(), Bitboards.WHITE));
+		assertTrue(notations(board.getPosition(), Bitboards.BLACK).stream().noneMatch(n -> n.endsWith("d6")));
+
+		// Castling is not generated through an attacked square
+		board = new Board("3rk2r/8/8/8/8/8/8/R3K2R");
+		board.getPosition().setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
+		Set<String> castling = notations(board.getPosition(), Bitboards.WHITE);
+		assertTrue(castling.contains("e1-g1"));
+		assertFalse(castling.contains("e1-c1"));
+		board = new Board("r3k2r/8/8/8/8/8/8/R3K2R");
+		board.getPosition().setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
+		castling = notations(board.getPosition(), Bitboards.WHITE);
+		assertTrue(castling.contains("e1-g1") && castling.contains("e1-c1"));
+
+		// Castling moves are given to the game as the king moving onto the rook
+		Move move = board.toMove(Moves.of(4, 6, Moves.KING_CASTLE));
+		assertEquals("e1-h1", move.getAlgebraicNotation());
+	}
+
+	@Test
+	void legalityWithPinsAndChecks() {
+		// The bishop is pinned on the e-file, only the king moves
+		assertEquals(4, MoveGenerator.generateLegal(new Board("4k3/4r3/8/8/8/8/4B3/4K3").getPosition(),
+				Bitboards.WHITE, moves));
+
+		// Double check by rook and knight, the queen cannot help
+		Set<String> evasions = notations(new Board("4k3/8/8/8/3Q4/5n2/8/r3K3").getPosition(), Bitboards.WHITE);
+		assertEquals(Set.of("e1-e2", "e1-f2"), evasions);
+
+		// Single check, blocking it or moving the king
+		evasions = notations(new Board("4k3/8/8/8/8/8/3PB3/r3K3").getPosition(), Bitboards.WHITE);
+		assertEquals(Set.of("e2-d1", "e1-f2"), evasions);
+
+		// En passant that would expose the king along the rank
+		Board board = new Board("8/8/8/KPp4r/8/8/8/7k");
+		board.getPosition().setEnPassantSquare(Bitboards.square(5, 2));
+		assertFalse(notations(board.getPosition(), Bitboards.WHITE).contains("b5-c6"));
+	}
+
+	@Test
+	void gameStatus() {
+		Game game = new Game();
+		assertEquals(GameStatus.ACTIVE, game.getStatus());
+		assertEquals(20, game.getLegalMoves().size());
+		assertFalse(game.move(game.getCurrentTurn(), new Position("e2"), new Position("e5")));
+		String[] foolsMate = { "f2-f3", "e7-e5", "g2-g4", "d8-h4" };
+		for (String move : foolsMate) {
+			String[] squares = move.split("-");
+			assertTrue(game.move(game.getCurrentTurn(), new Position(squares[0]), new Position(squares[1])));
+		}
+		assertEquals(GameStatus.BLACK_WIN, game.getStatus());
+		assertTrue(game.isCheck());
+		assertTrue(game.getLegalMoves().isEmpty());
+
+		assertEquals(GameStatus.STALEMATE, GameStatus.get(new Board("k7/8/1Q6/8/8/8/8/7K"), Colour.BLACK));
+		assertEquals(GameStatus.ACTIVE, GameStatus.get(new Board("k7/8/2Q5/8/8/8/8/7K"), Colour.BLACK));
+	}
+
+	@Test
+	void generationThroughput() {
+		BitboardPosition[] positions = {
+				new Board().getPosition(),
+				new Board(KIWIPETE).getPosition(),
+				new Board("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8").getPosition() };
+		positions[1].setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
+
+		long generated = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < 100_000; i++) {
+			BitboardPosition position = positions[i % positions.length];
+			generated += MoveGenerator.generate(position, Bitboards.WHITE, moves);
+			generated += MoveGenerator.generate(position, Bitboards.BLACK, moves);
+		}
+		long elapsed = System.nanoTime() - start;
+		log.info("Move generation: {} moves in {} ms ({} M moves/s)", generated, elapsed / 1_000_000,
+				String.format("%.2f", generated * 1_000.0 / elapsed));
+		assertTrue(generated > 0);
+	}
+
+	private Set<String> notations(BitboardPosition position, int colour) {
+		Set<String> notations = new HashSet<>();
+		int count = MoveGenerator.generateLegal(position, colour, moves);
+		for (int i = 0; i < count; i++) {
+			notations.add(Moves.toAlgebraicNotation(moves[i]));
+		}
+		return notations;
+	}
+
+	private int countPromotions(BitboardPosition position, int colour) {
+		int promotions = 0;
+		int count = MoveGenerator.generateLegal(position, colour, moves);
+		for (int i = 0; i < count; i++) {
+			if (Moves.isPromotion(moves[i])) {
+				promotions++;
+			}
+		}
+		return promotions;
+	}
+}
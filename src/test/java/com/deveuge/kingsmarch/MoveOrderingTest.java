@@ -0,0 +1,123 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.MoveOrdering;
+import com.deveuge.kingsmarch.ai.MovePicker;
+import com.deveuge.kingsmarch.ai.Search;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Fen;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest
+class MoveOrderingTest {
+
+	@Test
+	void ordersTableMoveCapturesKillersAndHistory() {
+		// The white queen on d4 can take the rook on d7, defended by the king, or the pawn on f6, and the knight on
+		// c3 can take the pawn on b5
+		BitboardPosition position = new BitboardPosition();
+		Fen.parse("4k3/3r4/5p2/1p6/3Q4/2N5/8/4K3 w - - 0 1", position);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+
+		int takeRook = Moves.of(27, 51, Moves.CAPTURE);
+		int takePawnWithQueen = Moves.of(27, 45, Moves.CAPTURE);
+		int takePawnWithKnight = Moves.of(18, 33, Moves.CAPTURE);
+		int killer = Moves.of(4, 3, Moves.QUIET);
+		int historyMove = Moves.of(4, 5, Moves.QUIET);
+		int tableMove = Moves.of(18, 1, Moves.QUIET);
+
+		MoveOrdering ordering = new MoveOrdering();
+		ordering.onCutoff(killer, position.getSideToMove(), 3, 2);
+		ordering.onCutoff(historyMove, position.getSideToMove(), 3, 5);
+		// Captures are not killers
+		ordering.onCutoff(takePawnWithQueen, position.getSideToMove(), 3, 2);
+		ordering.sort(position, moves, count, tableMove, 2);
+
+		assertEquals(tableMove, moves[0]);
+		assertEquals(takePawnWithKnight, moves[1]);
+		assertEquals(takePawnWithQueen, moves[2]);
+		assertEquals(killer, moves[3]);
+		assertEquals(historyMove, moves[4]);
+		// Losing the queen for the rook comes last
+		assertEquals(takeRook, moves[count - 1]);
+	}
+
+	@Test
+	void pickerFollowsTheOrdering() {
+		BitboardPosition position = new BitboardPosition();
+		Fen.parse("4k3/3r4/5p2/1p6/3Q4/2N5/8/4K3 w - - 0 1", position);
+		int killer = Moves.of(4, 3, Moves.QUIET);
+		int historyMove = Moves.of(4, 5, Moves.QUIET);
+		int tableMove = Moves.of(18, 1, Moves.QUIET);
+		MoveOrdering ordering = new MoveOrdering();
+		ordering.onCutoff(killer, position.getSideToMove(), 3, 2);
+		ordering.onCutoff(historyMove, position.getSideToMove(), 3, 5);
+
+		MovePicker picker = new MovePicker(ordering);
+		picker.init(position, tableMove, 2);
+		List<Integer> picked = new ArrayList<>();
+		for (int move = picker.next(); move != Moves.NONE; move = picker.next()) {
+			picked.add(move);
+		}
+		assertEquals(List.of(tableMove, Moves.of(18, 33, Moves.CAPTURE), Moves.of(27, 45, Moves.CAPTURE), killer,
+				historyMove), picked.subList(0, 5));
+		assertEquals(Moves.of(27, 51, Moves.CAPTURE), picked.get(picked.size() - 1));
+	}
+
+	@Test
+	void pickerPicksEveryLegalMoveOnce() {
+		String[] fens = { "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+				"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+				"8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1" };
+		MoveOrdering ordering = new MoveOrdering();
+		MovePicker picker = new MovePicker(ordering);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (String fen : fens) {
+			BitboardPosition position = new BitboardPosition();
+			Fen.parse(fen, position);
+			int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+			Set<Integer> legal = new HashSet<>();
+			for (int i = 0; i < count; i++) {
+				legal.add(moves[i]);
+			}
+			// Killers and table moves that are not legal in the position are skipped
+			ordering.onCutoff(Moves.of(8, 16, Moves.QUIET), position.getSideToMove(), 3, 1);
+			picker.init(position, Moves.of(0, 63, Moves.QUIET), 1);
+			List<Integer> picked = new ArrayList<>();
+			for (int move = picker.next(); move != Moves.NONE; move = picker.next()) {
+				picked.add(move);
+			}
+			assertEquals(count, picked.size(), fen);
+			assertEquals(legal, new HashSet<>(picked), fen);
+		}
+	}
+
+	@Test
+	void mostCutoffsHappenOnTheFirstMove() {
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.MIDDLEGAME));
+		Search search = new Search(game, SearchLimits.depth(5));
+		search.run();
+		log.info("Depth 5: {} nodes, {} cutoffs, {} on the first move", search.getNodes(), search.getCutoffs(),
+				search.getFirstMoveCutoffs());
+		assertTrue(search.getFirstMoveCutoffRate() > 0.8);
+	}
+}
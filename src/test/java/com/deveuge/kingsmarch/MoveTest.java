@@ -11,6 +11,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import com.deveuge.kingsmarch.engine.Board;
 import com.deveuge.kingsmarch.engine.Move;
 import com.deveuge.kingsmarch.engine.Player;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
 import com.deveuge.kingsmarch.engine.pieces.King;
 import com.deveuge.kingsmarch.engine.pieces.Pawn;
 import com.deveuge.kingsmarch.engine.pieces.Rook;
@@ -47,9 +48,10 @@ class MoveTest {
 		assertFalse(move2.isEnPassant());
 		assertTrue(move2.isCapturableEnPassant());
 		
-		// Advance rook two squares
-		board.getSquare(1, 0).getPiece().setFirstMove(false);
-		Move move3 = createMove(1, 0, 3, 0);
+		// Advance pawn two squares (not first move)
+		board.getSquare(1, 0).setPiece(null);
+		board.getSquare(2, 0).setPiece(new Pawn());
+		Move move3 = createMove(2, 0, 4, 0);
 		assertTrue(move3.getPieceMoved() instanceof Pawn);
 		assertNull(move3.getPieceKilled());
 		assertFalse(move3.isCastlingMove());
@@ -72,8 +74,7 @@ class MoveTest {
 		// En passant capture
 		board.getSquare(4, 5).setPiece(new Pawn());
 		board.getSquare(4, 6).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(4, 6).getPiece().setFirstMove(false);
-		((Pawn) board.getSquare(4, 6).getPiece()).setCapturableEnPassant(true);
+		board.getPosition().setEnPassantSquare(Bitboards.square(5, 6));
 		Move move2 = createMove(4, 5, 5, 6);
 		assertTrue(move2.getPieceMoved() instanceof Pawn && move.getPieceMoved().isWhite());
 		assertTrue(move2.getPieceKilled() instanceof Pawn && !move.getPieceKilled().isWhite());
@@ -0,0 +1,86 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.GameAI;
+import com.deveuge.kingsmarch.ai.ParallelSearch;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.ai.TranspositionTable;
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest
+class ParallelSearchTest {
+
+	@Autowired
+	ThreadPoolExecutor searchHelpers;
+
+	@Test
+	void threadsShareTheTable() {
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+		SearchLimits limits = SearchLimits.builder().maxDepth(4).threads(4).build();
+		assertEquals("b7-b1", GameAI.getNextMove(game, limits, new TranspositionTable(1), searchHelpers)
+				.getAlgebraicNotation());
+
+		game.setBoard(new Board(TestPositions.MIDDLEGAME));
+		ParallelSearch search = new ParallelSearch(game, limits, new TranspositionTable(4), searchHelpers);
+		assertEquals(4, search.getThreads());
+		assertNotNull(search.run());
+		assertEquals(4, search.getCompletedDepth());
+		log.info("Depth 4 on {} threads: {} nodes", search.getThreads(), search.getNodes());
+
+		// The threads are capped by the pool of helpers
+		limits = limits.toBuilder().threads(searchHelpers.getMaximumPoolSize() + 10).build();
+		search = new ParallelSearch(game, limits, new TranspositionTable(1), searchHelpers);
+		assertEquals(searchHelpers.getMaximumPoolSize() + 1, search.getThreads());
+
+		// The main thread always searches
+		assertEquals(1, new ParallelSearch(game, limits.toBuilder().threads(0).build(), new TranspositionTable(1),
+				searchHelpers).getThreads());
+
+		// Stopped before starting, a legal move is still returned
+		search.stop();
+		assertNotNull(search.run());
+		assertEquals(0, search.getCompletedDepth());
+	}
+
+	@Test
+	void busyHelpersAreDropped() throws InterruptedException {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			// The only helper is busy with another search
+			pool.execute(() -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			Game game = new Game();
+			game.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+			ParallelSearch search = new ParallelSearch(game, SearchLimits.builder().maxDepth(4).threads(2).build(),
+					new TranspositionTable(1), pool);
+			assertEquals("b7-b1", search.run().getAlgebraicNotation());
+			assertEquals(1, search.getThreads());
+			assertEquals(1, search.getStatistics().getThreads());
+		} finally {
+			release.countDown();
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.Fen;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+import com.deveuge.kingsmarch.engine.bitboard.Perft;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest
+class PerftTest {
+
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+	/** Published perft positions: FEN, depth and number of leaf nodes */
+	private static final Object[][] SUITE = {
+			{ Fen.INITIAL, 4, 197_281L },
+			{ KIWIPETE, 3, 97_862L },
+			{ "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674_624L },
+			{ "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422_333L },
+			{ "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3, 62_379L },
+			// En passant that would leave the king in check, or that gives check
+			{ "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6, 1_134_888L },
+			{ "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6, 1_015_133L },
+			{ "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 6, 1_440_467L },
+			// Castling
+			{ "5k2/8/8/8/8/8/8/4K2R w K - 0 1", 6, 661_072L },
+			{ "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 6, 803_711L },
+			{ "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4, 1_274_206L },
+			// Promotions, including under-promotions
+			{ "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3_821_001L },
+			{ "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217_342L },
+			{ "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92_683L } };
+
+	@Test
+	void regressionSuite() {
+		long nodes = 0;
+		long start = System.nanoTime();
+		for (Object[] entry : SUITE) {
+			String fen = (String) entry[0];
+			BitboardPosition position = new BitboardPosition();
+			Fen.parse(fen, position);
+			long count = Perft.perft(position, (int) entry[1]);
+			assertEquals((long) entry[2], count, fen);
+			assertEquals(fen, Fen.toFen(position));
+			nodes += count;
+		}
+		long elapsed = System.nanoTime() - start;
+		log.info("Perft suite: {} nodes in {} ms ({} nodes/s)", nodes, elapsed / 1_000_000,
+				nodes * 1_000_000_000L / elapsed);
+	}
+
+	@Test
+	void stagedGeneration() {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		Set<Integer> candidates = new HashSet<>();
+		for (Object[] entry : SUITE) {
+			BitboardPosition position = new BitboardPosition();
+			Fen.parse((String) entry[0], position);
+			for (int colour : new int[] { Bitboards.WHITE, Bitboards.BLACK }) {
+				int count = MoveGenerator.generate(position, colour, moves);
+				for (int i = 0; i < count; i++) {
+					candidates.add(moves[i]);
+				}
+			}
+		}
+		for (Object[] entry : SUITE) {
+			String fen = (String) entry[0];
+			BitboardPosition position = new BitboardPosition();
+			Fen.parse(fen, position);
+			int colour = position.getSideToMove();
+			Set<Integer> all = new HashSet<>();
+			int count = MoveGenerator.generate(position, colour, moves);
+			for (int i = 0; i < count; i++) {
+				all.add(moves[i]);
+			}
+			// Captures and quiet moves are all the moves
+			Set<Integer> staged = new HashSet<>();
+			count = MoveGenerator.generateCaptures(position, colour, moves);
+			for (int i = 0; i < count; i++) {
+				staged.add(moves[i]);
+			}
+			int captures = staged.size();
+			count = MoveGenerator.generateQuiets(position, colour, moves);
+			for (int i = 0; i < count; i++) {
+				staged.add(moves[i]);
+			}
+			assertEquals(all, staged, fen);
+			assertEquals(all.size(), captures + count, fen);
+			// Moves of any position are recognised without generating the moves of this one
+			for (int move : candidates) {
+				assertEquals(all.contains(move), MoveGenerator.isPseudoLegal(position, colour, move),
+						fen + " " + Moves.toNotation(move));
+			}
+		}
+	}
+
+	@Test
+	void divideAddsUpToTheTotal() {
+		Perft.Result result = Perft.divide("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1", 2);
+		assertEquals(4 + 5, result.divide().size());
+		assertEquals(result.nodes(), result.divide().values().stream().mapToLong(Long::longValue).sum());
+		for (String promotion : new String[] { "b7-b8q", "b7-b8r", "b7-b8b", "b7-b8n" }) {
+			assertTrue(result.divide().containsKey(promotion), promotion);
+		}
+	}
+
+	@Test
+	void parallelSplitAtTheRoot() {
+		Perft.Result sequential = Perft.divide(KIWIPETE, 3);
+		Perft.Result parallel = Perft.divide(KIWIPETE, 4, ForkJoinPool.commonPool());
+		assertEquals(97_862, sequential.nodes());
+		assertEquals(4_085_603, parallel.nodes());
+		log.info("Perft: {} nodes in {} ms ({} nodes/s sequential), {} nodes in {} ms ({} nodes/s on {} threads)",
+				sequential.nodes(), sequential.nanos() / 1_000_000, sequential.nodesPerSecond(),
+				parallel.nodes(), parallel.nanos() / 1_000_000, parallel.nodesPerSecond(),
+				ForkJoinPool.commonPool().getParallelism());
+	}
+}
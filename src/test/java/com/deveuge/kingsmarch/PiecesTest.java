@@ -12,6 +12,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import com.deveuge.kingsmarch.engine.Board;
 import com.deveuge.kingsmarch.engine.Square;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
 import com.deveuge.kingsmarch.engine.pieces.Bishop;
 import com.deveuge.kingsmarch.engine.pieces.King;
 import com.deveuge.kingsmarch.engine.pieces.Knight;
@@ -64,8 +68,7 @@ class PiecesTest {
 	@Test
 	void pawnMovement() {
 		board.getSquare(0, 0).setPiece(new King());
-		board.getSquare(7, 7).setPiece(new King());
-		board.getSquare(7, 7).getPiece().setColour(Colour.BLACK);
+		board.getSquare(7, 7).setPiece(new King(Colour.BLACK));
 		
 		board.getSquare(1, 0).setPiece(new Pawn());
 		board.getSquare(1, 1).setPiece(new Pawn());
@@ -80,8 +83,11 @@ class PiecesTest {
 		// Advance diagonally
 		assertFalse(checkIfCanMove(1, 0, 2, 1));
 		// Advance two squares (not first move)
-		board.getSquare(1, 0).getPiece().setFirstMove(false);
-		assertFalse(checkIfCanMove(1, 0, 3, 0));
+		board.getSquare(1, 0).setPiece(null);
+		board.getSquare(2, 0).setPiece(new Pawn());
+		assertFalse(checkIfCanMove(2, 0, 4, 0));
+		board.getSquare(2, 0).setPiece(null);
+		board.getSquare(1, 0).setPiece(new Pawn());
 		// Advance horizontally
 		assertFalse(checkIfCanMove(1, 0, 1, 1));
 		// Advance diagonally (w/o opponent piece)
@@ -90,7 +96,6 @@ class PiecesTest {
 		// Advance diagonally (w/ opponent piece)
 		board.getSquare(2, 0).setPiece(new Pawn(Colour.BLACK));
 		board.getSquare(2, 2).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(1, 1).getPiece().setFirstMove(false);
 		assertTrue(checkIfCanMove(1, 1, 2, 0));
 		assertTrue(checkIfCanMove(1, 1, 2, 2));
 		// Advance vertically (w/ opponent piece)
@@ -99,32 +104,25 @@ class PiecesTest {
 		// Advance black pawn
 		board.getSquare(7, 0).setPiece(new Pawn(Colour.BLACK));
 		assertTrue(checkIfCanMove(7, 0, 6, 0));
-		board.getSquare(7, 0).getPiece().setFirstMove(false);
 		assertFalse(checkIfCanMove(7, 0, 6, 1));
 	}
 	
 	@Test
 	void pawnEnPassantMovement() {
 		board.getSquare(0, 0).setPiece(new King());
-		board.getSquare(7, 7).setPiece(new King());
-		board.getSquare(7, 7).getPiece().setColour(Colour.BLACK);
+		board.getSquare(7, 7).setPiece(new King(Colour.BLACK));
 		
 		// White pawn capturing black pawn
-		Pawn blackPawn = new Pawn(Colour.BLACK);
-		blackPawn.setFirstMove(false);
-		blackPawn.setCapturableEnPassant(true);
-		board.getSquare(4, 1).setPiece(blackPawn);
+		board.getSquare(4, 1).setPiece(new Pawn(Colour.BLACK));
 		board.getSquare(4, 2).setPiece(new Pawn());
-		board.getSquare(4, 2).getPiece().setFirstMove(false);
+		assertFalse(checkIfCanMove(4, 2, 5, 1));
+		board.getPosition().setEnPassantSquare(Bitboards.square(5, 1));
 		assertTrue(checkIfCanMove(4, 2, 5, 1));
 
 		// Black pawn capturing white pawn
-		Pawn whitePawn = new Pawn(Colour.WHITE);
-		whitePawn.setFirstMove(false);
-		whitePawn.setCapturableEnPassant(true);
-		board.getSquare(3, 4).setPiece(whitePawn);
+		board.getSquare(3, 4).setPiece(new Pawn(Colour.WHITE));
 		board.getSquare(3, 3).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(3, 3).getPiece().setFirstMove(false);
+		board.getPosition().setEnPassantSquare(Bitboards.square(2, 4));
 		assertTrue(checkIfCanMove(3, 3, 2, 4));
 
 		// Wrong en passant
@@ -206,8 +204,7 @@ class PiecesTest {
 	@Test
 	void knightMovement() {
 		board.getSquare(0, 0).setPiece(new King());
-		board.getSquare(7, 7).setPiece(new King());
-		board.getSquare(7, 7).getPiece().setColour(Colour.BLACK);
+		board.getSquare(7, 7).setPiece(new King(Colour.BLACK));
 		
 		board.getSquare(3, 3).setPiece(new Knight());
 		// Move all directions
@@ -236,8 +233,7 @@ class PiecesTest {
 	@Test
 	void bishopMovement() {
 		board.getSquare(0, 0).setPiece(new King());
-		board.getSquare(7, 7).setPiece(new King());
-		board.getSquare(7, 7).getPiece().setColour(Colour.BLACK);
+		board.getSquare(7, 7).setPiece(new King(Colour.BLACK));
 		
 		board.getSquare(3, 3).setPiece(new Bishop());
 		// Move all directions
@@ -372,8 +368,7 @@ class PiecesTest {
 		assertFalse(checkIfCanMove(3, 3, 5, 5));
 		
 		// In check
-		board.getSquare(1, 5).setPiece(new Knight());
-		board.getSquare(1, 5).getPiece().setColour(Colour.BLACK);
+		board.getSquare(1, 5).setPiece(new Knight(Colour.BLACK));
 		assertFalse(checkIfCanMove(3, 3, 3, 4));
 		board.getSquare(1, 5).setPiece(null);
 		
@@ -395,27 +390,17 @@ class PiecesTest {
 		assertFalse(checkIfCanMove(3, 3, 2, 2));
 		assertFalse(checkIfCanMove(3, 3, 2, 4));
 		
-		// Move all directions (w/ opponent piece)
-		board.getSquare(0, 0).setPiece(new King());
-		board.getSquare(7, 7).setPiece(new King());
-		board.getSquare(7, 7).getPiece().setColour(Colour.BLACK);
-		
-		board.getSquare(3, 4).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(3, 2).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(4, 3).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(2, 3).setPiece(new Pawn(Colour.BLACK));
-		assertTrue(checkIfCanMove(3, 3, 3, 4));
-		assertTrue(checkIfCanMove(3, 3, 3, 2));
-		assertTrue(checkIfCanMove(3, 3, 4, 3));
-		assertTrue(checkIfCanMove(3, 3, 2, 3));
-		board.getSquare(4, 4).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(4, 2).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(2, 2).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(2, 4).setPiece(new Pawn(Colour.BLACK));
-		assertTrue(checkIfCanMove(3, 3, 4, 4));
-		assertTrue(checkIfCanMove(3, 3, 4, 2));
-		assertTrue(checkIfCanMove(3, 3, 2, 2));
-		assertTrue(checkIfCanMove(3, 3, 2, 4));
+		// Move all directions (w/ opponent piece), one at a time so that none is defended
+		board.getSquare(7, 7).setPiece(new King(Colour.BLACK));
+		int[][] neighbours = { {3, 4}, {3, 2}, {4, 3}, {2, 3}, {4, 4}, {4, 2}, {2, 2}, {2, 4} };
+		for (int[] neighbour : neighbours) {
+			board.getSquare(neighbour[0], neighbour[1]).setPiece(null);
+		}
+		for (int[] neighbour : neighbours) {
+			board.getSquare(neighbour[0], neighbour[1]).setPiece(new Pawn(Colour.BLACK));
+			assertTrue(checkIfCanMove(3, 3, neighbour[0], neighbour[1]));
+			board.getSquare(neighbour[0], neighbour[1]).setPiece(null);
+		}
 	}
 	
 	@Test
@@ -423,6 +408,7 @@ class PiecesTest {
 		board.getSquare(0, 4).setPiece(new King());
 		board.getSquare(0, 0).setPiece(new Rook());
 		board.getSquare(0, 7).setPiece(new Rook());
+		board.getPosition().setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
 
 		// Correct castling
 		assertTrue(checkIfCanMove(0, 4, 0, 0));
@@ -434,22 +420,20 @@ class PiecesTest {
 		board.getSquare(1, 4).setPiece(null);
 		
 		// Incorrect castling (king has moved)
-		board.getSquare(0, 4).getPiece().setFirstMove(false);
+		board.getPosition().setCastlingRights(BitboardPosition.BLACK_KINGSIDE | BitboardPosition.BLACK_QUEENSIDE);
 		assertFalse(checkIfCanMove(0, 4, 0, 0));
 		assertFalse(checkIfCanMove(0, 4, 0, 7));
 		
 		// Incorrect castling (rook have moved)
-		board.getSquare(0, 4).getPiece().setFirstMove(true);
-		board.getSquare(0, 0).getPiece().setFirstMove(false);
-		board.getSquare(0, 7).getPiece().setFirstMove(false);
+		board.getPosition().setCastlingRights(BitboardPosition.WHITE_KINGSIDE);
 		assertFalse(checkIfCanMove(0, 4, 0, 0));
+		board.getPosition().setCastlingRights(BitboardPosition.WHITE_QUEENSIDE);
 		assertFalse(checkIfCanMove(0, 4, 0, 7));
 		
 		// Incorrect castling (pieces of wrong colour)
-		board.getSquare(0, 0).getPiece().setFirstMove(true);
-		board.getSquare(0, 7).getPiece().setFirstMove(true);
-		board.getSquare(0, 0).getPiece().setColour(Colour.BLACK);
-		board.getSquare(0, 7).getPiece().setColour(Colour.BLACK);
+		board.getPosition().setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
+		board.getSquare(0, 0).setPiece(new Rook(Colour.BLACK));
+		board.getSquare(0, 7).setPiece(new Rook(Colour.BLACK));
 		assertFalse(checkIfCanMove(0, 4, 0, 0));
 		assertFalse(checkIfCanMove(0, 4, 0, 7));
 
@@ -467,7 +451,6 @@ class PiecesTest {
 		
 		// Incorrect castling (rook in incorrect position)
 		board.getSquare(1, 4).setPiece(new Rook());
-		board.getSquare(1, 4).getPiece().setFirstMove(false);
 		assertFalse(checkIfCanMove(0, 4, 1, 4));
 		board.getSquare(1, 4).setPiece(null);
 	}
@@ -477,13 +460,12 @@ class PiecesTest {
 		board.getSquare(0, 4).setPiece(new King());
 		board.getSquare(0, 0).setPiece(new Rook());
 		board.getSquare(0, 7).setPiece(new Rook());
+		board.getPosition().setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
 		
 		// Incorrect castling (king in check)
-		board.getSquare(7, 6).setPiece(new King());
-		board.getSquare(7, 6).getPiece().setColour(Colour.BLACK);
+		board.getSquare(7, 6).setPiece(new King(Colour.BLACK));
 		
 		board.getSquare(1, 3).setPiece(new Pawn(Colour.BLACK));
-		board.getSquare(1, 3).getPiece().setFirstMove(false);
 		assertFalse(checkIfCanMove(0, 4, 0, 0));
 		assertFalse(checkIfCanMove(0, 4, 0, 7));
 		
@@ -493,15 +475,19 @@ class PiecesTest {
 		assertTrue(checkIfCanMove(0, 4, 0, 7));
 		board.getSquare(1, 3).setPiece(null);
 		
+		// Correct castling (only the rook goes through an attacked square)
+		board.getSquare(7, 1).setPiece(new Queen(Colour.BLACK));
+		assertTrue(checkIfCanMove(0, 4, 0, 0));
+		board.getSquare(7, 1).setPiece(null);
+		
 		// Incorrect castling (king goes through check)
-		board.getSquare(7, 1).setPiece(new Queen());
-		board.getSquare(7, 1).getPiece().setColour(Colour.BLACK);
+		board.getSquare(7, 2).setPiece(new Queen(Colour.BLACK));
 		assertFalse(checkIfCanMove(0, 4, 0, 0));
-		board.getSquare(7, 1).setPiece(null);
+		board.getSquare(7, 2).setPiece(null);
+		board.getPosition().setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
 
 		// Incorrect castling (king goes through check)
-		board.getSquare(2, 1).setPiece(new Knight());
-		board.getSquare(2, 1).getPiece().setColour(Colour.BLACK);
+		board.getSquare(2, 1).setPiece(new Knight(Colour.BLACK));
 		assertFalse(checkIfCanMove(0, 4, 0, 0));
 		board.getSquare(2, 1).setPiece(null);
 		
@@ -515,8 +501,11 @@ class PiecesTest {
 	private boolean checkIfCanMove(int startRow, int startCol, int endRow, int endCol) {
 		Square start = board.getSquare(startRow, startCol);
 		Square end = board.getSquare(endRow, endCol);
-		Piece piece = start.getPiece();
-		return piece.canMove(board, start, end);
+		BitboardPosition position = board.getPosition();
+		int move = position.createMove(Bitboards.square(startRow, startCol), Bitboards.square(endRow, endCol));
+		// On the board castling is the king moving onto its rook
+		return King.isCastlingMove(start, end) == Moves.isCastling(move)
+				&& MoveGenerator.isLegalMove(position, Bitboards.colour(start.getPiece().getColour()), move);
 	}
 
 }
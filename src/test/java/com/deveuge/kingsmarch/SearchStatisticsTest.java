@@ -0,0 +1,79 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.ParallelSearch;
+import com.deveuge.kingsmarch.ai.Search;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.ai.SearchMetrics;
+import com.deveuge.kingsmarch.ai.SearchStatistics;
+import com.deveuge.kingsmarch.ai.TranspositionTable;
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest
+class SearchStatisticsTest {
+
+	@Autowired
+	ThreadPoolExecutor searchHelpers;
+
+	@Test
+	void countsTheWorkOfTheSearch() {
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.MIDDLEGAME));
+		Search search = new Search(game, SearchLimits.depth(5));
+		search.run();
+		SearchStatistics statistics = search.getStatistics();
+		log.info("Depth {}/{}: {} nodes, {} nps, table hit rate {}, iterations {} ms", statistics.getCompletedDepth(),
+				statistics.getSelectiveDepth(), statistics.getNodes(), statistics.getNodesPerSecond(),
+				statistics.getTableHitRate(), statistics.getIterationMillis());
+
+		assertEquals(search.getNodes(), statistics.getNodes());
+		assertEquals(5, statistics.getCompletedDepth());
+		assertTrue(statistics.getSelectiveDepth() > 5);
+		assertTrue(statistics.getQuiescenceNodes() > 0 && statistics.getQuiescenceNodes() < statistics.getNodes());
+		assertTrue(statistics.getTableHits() > 0 && statistics.getTableHits() <= statistics.getTableProbes());
+		assertTrue(statistics.getFirstMoveCutoffs() <= statistics.getCutoffs());
+		assertEquals(search.getNullMoveCutoffs(), statistics.getNullMoveCutoffs());
+		assertEquals(search.getFutilityPrunes(), statistics.getFutilityPrunes());
+		assertTrue(statistics.getLateMoveReductions() > 0);
+		assertEquals(5, statistics.getIterationMillis().size());
+		assertTrue(statistics.getNodesPerSecond() > 0);
+	}
+
+	@Test
+	void mergesTheThreadsAndPublishesMetrics() {
+		Game game = new Game();
+		game.setBoard(new Board(TestPositions.MIDDLEGAME));
+		ParallelSearch search = new ParallelSearch(game, SearchLimits.builder().maxDepth(4).threads(2).build(),
+				new TranspositionTable(1), searchHelpers);
+		search.run();
+		SearchStatistics statistics = search.getStatistics();
+		assertEquals(2, statistics.getThreads());
+		assertEquals(search.getNodes(), statistics.getNodes());
+		assertEquals(search.getCompletedDepth(), statistics.getCompletedDepth());
+
+		MeterRegistry registry = new SimpleMeterRegistry();
+		SearchMetrics metrics = new SearchMetrics(registry);
+		metrics.record(statistics);
+		metrics.record(statistics);
+		assertEquals(2 * statistics.getNodes(), registry.get("kingsmarch.search.nodes").counter().count());
+		assertEquals(2, registry.get("kingsmarch.search.time").timer().count());
+		assertEquals(2 * statistics.getNullMoveCutoffs(),
+				registry.get("kingsmarch.search.pruned").tag("technique", "null-move").counter().count());
+		assertEquals(2 * statistics.getLateMoveReductions(), registry.get("kingsmarch.search.reductions").counter().count());
+		assertEquals(2, registry.get("kingsmarch.search.iteration.time").tag("depth", "1").timer().count());
+	}
+}
@@ -0,0 +1,64 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.MoveOrdering;
+import com.deveuge.kingsmarch.ai.StaticExchange;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.bitboard.Fen;
+import com.deveuge.kingsmarch.engine.bitboard.MoveGenerator;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+import com.deveuge.kingsmarch.engine.pieces.Pawn;
+import com.deveuge.kingsmarch.engine.pieces.Queen;
+import com.deveuge.kingsmarch.engine.pieces.Rook;
+
+@SpringBootTest
+class StaticExchangeTest {
+
+	private final StaticExchange exchange = new StaticExchange();
+
+	@Test
+	void exchanges() {
+		// Undefended pawn
+		assertEquals(Pawn.VALUE, evaluate("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", Moves.of(4, 36, Moves.CAPTURE)));
+
+		// Pawn defended by a pawn
+		assertEquals(Pawn.VALUE - Rook.VALUE,
+				evaluate("1k6/8/5p2/4p3/8/8/8/2K1R3 w - - 0 1", Moves.of(4, 36, Moves.CAPTURE)));
+
+		// The rook behind the first one takes back through an x-ray
+		assertEquals(Pawn.VALUE, evaluate("4r1k1/8/8/4p3/8/8/4R3/K3R3 w - - 0 1", Moves.of(12, 36, Moves.CAPTURE)));
+		assertEquals(Pawn.VALUE - Rook.VALUE,
+				evaluate("4r1k1/8/8/4p3/8/8/4R3/K7 w - - 0 1", Moves.of(12, 36, Moves.CAPTURE)));
+
+		// The king cannot take back on a defended square
+		assertEquals(Pawn.VALUE - Rook.VALUE,
+				evaluate("8/8/4k3/3p4/8/8/8/3RK3 w - - 0 1", Moves.of(3, 35, Moves.CAPTURE)));
+		assertEquals(Pawn.VALUE, evaluate("8/8/4k3/3p4/8/1B6/8/3RK3 w - - 0 1", Moves.of(3, 35, Moves.CAPTURE)));
+
+		// En passant and promotions
+		assertEquals(Pawn.VALUE, evaluate("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", Moves.of(36, 43, Moves.EN_PASSANT)));
+		assertEquals(Rook.VALUE + Queen.VALUE - Pawn.VALUE, evaluate("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1",
+				Moves.promotion(48, 57, Bitboards.QUEEN, true)));
+	}
+
+	@Test
+	void losingCapturesAreSearchedLast() {
+		BitboardPosition position = new BitboardPosition();
+		Fen.parse("1k6/8/5p2/4p3/8/8/8/2K1R3 w - - 0 1", position);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		new MoveOrdering().sort(position, moves, count, Moves.NONE, 1);
+		assertEquals(Moves.of(4, 36, Moves.CAPTURE), moves[count - 1]);
+	}
+
+	private int evaluate(String fen, int move) {
+		BitboardPosition position = new BitboardPosition();
+		Fen.parse(fen, position);
+		return exchange.evaluate(position, move);
+	}
+}
@@ -0,0 +1,19 @@
+package com.deveuge.kingsmarch;
+
+/**
+ * Positions shared by the tests of the search.
+ */
+final class TestPositions {
+
+	/**
+	 * Middlegame full of tactics (Kiwipete, mirrored), with black to move so that
+	 * no move of the opening book applies
+	 */
+	static final String MIDDLEGAME = "r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1";
+
+	/** Black mates in one with b7-b1 */
+	static final String BACK_RANK_MATE = "k7/1r6/8/8/8/8/5PPP/6K1 b - - 0 1";
+
+	private TestPositions() {
+	}
+}
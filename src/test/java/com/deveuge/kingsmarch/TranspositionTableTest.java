@@ -0,0 +1,113 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.ai.Search;
+import com.deveuge.kingsmarch.ai.SearchLimits;
+import com.deveuge.kingsmarch.ai.TranspositionTable;
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.bitboard.Moves;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest
+class TranspositionTableTest {
+
+	@Test
+	void storeAndProbe() {
+		TranspositionTable table = new TranspositionTable(1);
+		assertEquals(1 << 16, table.getCapacity());
+		assertEquals(1 << 18, new TranspositionTable(5).getCapacity());
+
+		long key = 0x9D39247E33776D41L;
+		int move = Moves.of(12, 28, Moves.DOUBLE_PAWN_PUSH);
+		table.newSearch();
+		assertEquals(TranspositionTable.MISS, table.probe(key));
+
+		table.store(key, move, -1234, 5, TranspositionTable.LOWER);
+		long data = table.probe(key);
+		assertEquals(move, TranspositionTable.move(data));
+		assertEquals(-1234, TranspositionTable.score(data));
+		assertEquals(5, TranspositionTable.depth(data));
+		assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+
+		// Another key on the same entry does not verify
+		long otherKey = key ^ (1L << 40) ^ (1L << 8);
+		assertEquals(TranspositionTable.MISS, table.probe(otherKey));
+
+		// A shallower search of another position does not replace a deeper entry of the same search
+		table.store(otherKey, Moves.NONE, 10, 3, TranspositionTable.EXACT);
+		assertEquals(5, TranspositionTable.depth(table.probe(key)));
+
+		// Entries of an earlier search are always replaced
+		table.newSearch();
+		table.store(otherKey, Moves.NONE, 10, 3, TranspositionTable.EXACT);
+		assertEquals(TranspositionTable.MISS, table.probe(key));
+		assertEquals(10, TranspositionTable.score(table.probe(otherKey)));
+
+		// The same position keeps its move when stored again without one
+		table.store(otherKey, move, 10, 4, TranspositionTable.LOWER);
+		table.store(otherKey, Moves.NONE, -20, 4, TranspositionTable.UPPER);
+		assertEquals(move, TranspositionTable.move(table.probe(otherKey)));
+		assertEquals(-20, TranspositionTable.score(table.probe(otherKey)));
+
+		table.clear();
+		assertEquals(TranspositionTable.MISS, table.probe(otherKey));
+		assertEquals(0, table.getFillRate());
+
+		// Small keys fill the first entries, which are the ones sampled
+		for (long i = 0; i < 500; i++) {
+			table.store(i, move, 0, 1, TranspositionTable.EXACT);
+		}
+		assertEquals(0.5, table.getFillRate());
+		MeterRegistry registry = new SimpleMeterRegistry();
+		table.bindTo(registry);
+		assertEquals(0.5, registry.get("kingsmarch.search.table.fill").gauge().value());
+		assertEquals(table.getCapacity(), registry.get("kingsmarch.search.table.capacity").gauge().value());
+		table.newSearch();
+		assertEquals(0, table.getFillRate());
+		assertEquals(0, registry.get("kingsmarch.search.table.fill").gauge().value());
+	}
+
+	@Test
+	void searchWithSharedTable() {
+		TranspositionTable table = new TranspositionTable(1);
+		Game game = new Game();
+
+		// Mate in one is still found with cutoffs from the table, and with the same score
+		game.setBoard(new Board(TestPositions.BACK_RANK_MATE));
+		Search mate = new Search(game, SearchLimits.depth(4));
+		assertEquals("b7-b1", mate.run().getAlgebraicNotation());
+		for (int i = 0; i < 2; i++) {
+			Search mateWithTable = new Search(game, SearchLimits.depth(4), table);
+			assertEquals("b7-b1", mateWithTable.run().getAlgebraicNotation());
+			assertEquals(mate.getScore(), mateWithTable.getScore());
+		}
+
+		game.setBoard(new Board("k7/8/2p5/3r4/8/8/8/3QK3 w - - 0 1"));
+		assertNotEquals("d1-d5", new Search(game, SearchLimits.depth(4), table).run().getAlgebraicNotation());
+
+		game.setBoard(new Board(TestPositions.MIDDLEGAME));
+		table.clear();
+		Search withTable = new Search(game, SearchLimits.depth(4), table);
+		withTable.run();
+		assertEquals(4, withTable.getCompletedDepth());
+		assertTrue(withTable.getTableHits() > 0);
+		log.info("Depth 4 with a table: {} nodes, hit rate {}, fill rate {}", withTable.getNodes(),
+				(double) withTable.getTableHits() / withTable.getTableProbes(), table.getFillRate());
+
+		// Searching again reuses the results of the previous search
+		Search again = new Search(game, SearchLimits.depth(4), table);
+		again.run();
+		assertTrue(again.getNodes() < withTable.getNodes());
+	}
+}
@@ -0,0 +1,99 @@
+package com.deveuge.kingsmarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.deveuge.kingsmarch.engine.Board;
+import com.deveuge.kingsmarch.engine.Game;
+import com.deveuge.kingsmarch.engine.Player;
+import com.deveuge.kingsmarch.engine.bitboard.BitboardPosition;
+import com.deveuge.kingsmarch.engine.bitboard.Bitboards;
+import com.deveuge.kingsmarch.engine.pieces.Piece;
+import com.deveuge.kingsmarch.engine.types.Colour;
+import com.deveuge.kingsmarch.engine.util.Position;
+
+@SpringBootTest
+class ZobristTest {
+
+	@Test
+	void gameMovesKeepTheKeyUpToDate() {
+		Game game = new Game();
+		long initialKey = game.getZobristKey();
+
+		// Knights going out and back transpose to the initial position
+		play(game, "g1-f3", "g8-f6", "f3-g1", "f6-g8");
+		assertEquals(initialKey, game.getZobristKey());
+
+		// Castling, written as the king moving onto its rook
+		play(game, "e2-e4", "e7-e5", "g1-f3", "b8-c6", "f1-c4", "f8-c5", "e1-h1");
+		assertTrue(game.getLastMove().isCastlingMove());
+		assertKeyIsConsistent(game.getBoard());
+		assertEquals(BitboardPosition.BLACK_KINGSIDE | BitboardPosition.BLACK_QUEENSIDE,
+				game.getBoard().getPosition().getCastlingRights());
+
+		// Captures
+		play(game, "d7-d5", "e4-d5", "c6-d4", "d2-d3");
+		long beforeCapture = game.getZobristKey();
+		play(game, "d4-f3", "g2-f3", "c5-f2", "f1-f2");
+		assertNotEquals(beforeCapture, game.getZobristKey());
+		assertKeyIsConsistent(game.getBoard());
+	}
+
+	@Test
+	void enPassantAndPromotionKeepTheKeyUpToDate() {
+		Game game = new Game();
+		play(game, "e2-e4", "a7-a6", "e4-e5", "d7-d5");
+		assertEquals(43, game.getBoard().getPosition().getEnPassantSquare());
+		play(game, "e5-d6");
+		assertTrue(game.getLastMove().isEnPassant());
+		assertKeyIsConsistent(game.getBoard());
+
+		game = new Game();
+		game.setBoard(new Board("4k3/1P6/8/8/8/8/8/4K3"));
+		play(game, "b7-b8");
+		game.getLastMove().getEnd().setPiece(Piece.createPromotionPiece("n", Colour.WHITE));
+		assertKeyIsConsistent(game.getBoard());
+		Board promoted = new Board("1N2k3/8/8/8/8/8/8/4K3");
+		promoted.getPosition().setSideToMove(Bitboards.BLACK);
+		assertEquals(promoted.getZobristKey(), game.getZobristKey());
+	}
+
+	@Test
+	void unmakeMoveRestoresTheKey() {
+		Board board = new Board("r3k2r/1P6/8/8/3p4/8/4P3/R3K2R");
+		BitboardPosition position = board.getPosition();
+		position.setCastlingRights(BitboardPosition.ALL_CASTLING_RIGHTS);
+		long initialKey = board.getZobristKey();
+
+		int[] moves = new int[5];
+		moves[0] = board.makeMove(board.getSquare(1, 4), board.getSquare(3, 4));
+		moves[1] = board.makeMove(board.getSquare(3, 3), board.getSquare(2, 4));
+		moves[2] = board.makeMove(board.getSquare(0, 4), board.getSquare(0, 7));
+		moves[3] = board.makeMove(board.getSquare(7, 4), board.getSquare(7, 2));
+		moves[4] = board.makeMove(board.getSquare(6, 1), board.getSquare(7, 0));
+		assertKeyIsConsistent(board);
+
+		for (int i = moves.length - 1; i >= 0; i--) {
+			board.unmakeMove(moves[i]);
+			assertKeyIsConsistent(board);
+		}
+		assertEquals(initialKey, board.getZobristKey());
+	}
+
+	private void play(Game game, String... moves) {
+		for (String move : moves) {
+			Player player = game.getCurrentTurn();
+			String[] squares = move.split("-");
+			assertTrue(game.move(player, new Position(squares[0]), new Position(squares[1])), move);
+			assertKeyIsConsistent(game.getBoard());
+		}
+	}
+
+	private void assertKeyIsConsistent(Board board) {
+		assertEquals(board.getPosition().computeKey(), board.getZobristKey());
+	}
+}